@@ -16,6 +16,9 @@ import net.saint.createrenderfixer.dh.ContraptionPersistencyUtil;
 import net.saint.createrenderfixer.dh.ContraptionRegistrationUtil;
 import net.saint.createrenderfixer.dh.DhBridge;
 import net.saint.createrenderfixer.dh.DhChunkProcessingHandler;
+import net.saint.createrenderfixer.dh.DhDimensionResolver;
+import net.saint.createrenderfixer.dh.DhDirtyChunkQueue;
+import net.saint.createrenderfixer.dh.DhWrapperCache;
 import net.saint.createrenderfixer.dh.WindmillLODManager;
 import net.saint.createrenderfixer.dh.WindmillLODServerTracker;
 import net.saint.createrenderfixer.network.WindmillLODSyncUtil;
@@ -75,18 +78,31 @@ public class Mod implements ModInitializer {
 
 		DhBridge.init();
 		DhChunkProcessingHandler.init();
+		DhWrapperCache.init();
+		DhDimensionResolver.init();
 		WindmillLODSyncUtil.initServer();
 
+		ServerLifecycleEvents.SERVER_STARTING.register(ContraptionPersistencyUtil::reset);
 		ServerLifecycleEvents.SERVER_STARTED.register(ContraptionPersistencyUtil::load);
-		ServerLifecycleEvents.SERVER_STOPPING.register(ContraptionPersistencyUtil::save);
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> DhWrapperCache.clear());
 		ServerTickEvents.END_SERVER_TICK.register(WindmillLODServerTracker::tick);
+		ServerTickEvents.END_SERVER_TICK.register(WindmillLODSyncUtil::tick);
+		ServerTickEvents.END_SERVER_TICK.register(DhDirtyChunkQueue::tick);
+		ServerTickEvents.END_SERVER_TICK.register(ContraptionPersistencyUtil::tick);
 
 		ServerWorldEvents.UNLOAD.register((server, world) -> {
-			ContraptionBlockRegistry.clearForWorld(world.dimension().location().toString());
-			WindmillLODSyncUtil.sendLoadPacketToAllPlayers(server);
+			var dimensionId = world.dimension().location().toString();
+
+			ContraptionBlockRegistry.clearForWorld(dimensionId);
+			DhDimensionResolver.onDimensionUnload(dimensionId);
+			WindmillLODSyncUtil.sendRemovalPacketsForDimension(server, dimensionId);
 		});
 
 		ServerWorldEvents.LOAD.register((server, world) -> {
+			var dimensionId = world.dimension().location().toString();
+
+			DhDimensionResolver.onDimensionLoad(dimensionId);
+			ContraptionPersistencyUtil.loadDimension(server, dimensionId);
 			ContraptionRegistrationUtil.registerAllWorldEntities(world);
 		});
 
@@ -6,6 +6,7 @@ import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.Minecraft;
 import net.saint.createrenderfixer.client.WindmillLODRenderManager;
+import net.saint.createrenderfixer.dh.WindmillLODKeyframeCache;
 import net.saint.createrenderfixer.dh.WindmillLODManager;
 import net.saint.createrenderfixer.dh.WindmillLODMaterialManager;
 import net.saint.createrenderfixer.network.WindmillLODSyncUtil;
@@ -16,6 +17,7 @@ public final class ModClient implements ClientModInitializer {
 
 	public static WindmillLODManager WINDMILL_LOD_MANAGER;
 	public static WindmillLODMaterialManager WINDMILL_LOD_MATERIAL_MANAGER;
+	public static WindmillLODKeyframeCache WINDMILL_LOD_KEYFRAME_CACHE;
 
 	// Init
 
@@ -31,6 +33,7 @@ public final class ModClient implements ClientModInitializer {
 	private void initializeDistantHorizonsInterop() {
 		WINDMILL_LOD_MANAGER = new WindmillLODManager();
 		WINDMILL_LOD_MATERIAL_MANAGER = new WindmillLODMaterialManager();
+		WINDMILL_LOD_KEYFRAME_CACHE = new WindmillLODKeyframeCache();
 
 		reloadWindmillMaterialManagerFromConfig();
 		registerConfigReloadListener();
@@ -54,6 +57,7 @@ public final class ModClient implements ClientModInitializer {
 	private static void registerConfigReloadListener() {
 		AutoConfig.getConfigHolder(ModConfig.class).registerSaveListener((config, data) -> {
 			reloadWindmillMaterialManagerFromConfig();
+			WINDMILL_LOD_KEYFRAME_CACHE.clear();
 			return null;
 		});
 	}
@@ -40,6 +40,18 @@ public class ModConfig implements ConfigData {
 	@Comment("Enable injection of Create contraption blocks for LOD building with Distant Horizons. (Default: true)")
 	public boolean injectContraptionLODs = true;
 
+	@ConfigEntry.Category("lods")
+	@Comment("Server tick interval at which changed contraption chunks are sent to Distant Horizons for rebuilding. (Default: 10)")
+	public int contraptionDirtyChunkFlushInterval = 10;
+
+	@ConfigEntry.Category("lods")
+	@Comment("Maximum number of changed contraption chunks sent to Distant Horizons per flush. (Default: 256)")
+	public int contraptionDirtyChunkFlushBudget = 256;
+
+	@ConfigEntry.Category("lods")
+	@Comment("Server tick interval at which changed contraption regions are saved in addition to world saves, 0 to disable. (Default: 1200)")
+	public int contraptionRegionSaveInterval = 1200;
+
 	// LODs (Windmill)
 
 	@ConfigEntry.Category("lods-windmill")
@@ -110,6 +122,10 @@ public class ModConfig implements ConfigData {
 	@Comment("Throttles player sync updates by distance (in chunks). The time between syncs in multiplied by distance in chunks divided by stride. Lower means more aggressive throttling. (Default: 4)")
 	public int windmillSyncDistanceStride = 4;
 
+	@ConfigEntry.Category("lods-windmill")
+	@Comment("Maximum number of windmill updates sent to a single player per tick. Overdue and nearby windmills are sent first, the rest are deferred. (Default: 64)")
+	public int windmillSyncUpdateBudget = 64;
+
 	@ConfigEntry.Category("lods-windmill")
 	@Comment("Maximum rotation angle delta between server expectation and client actual to cause override. (Default: 1.0)")
 	public float windmillRotationAngleSyncThreshold = 1.0f;
@@ -119,9 +135,21 @@ public class ModConfig implements ConfigData {
 	public float windmillRotationSpeedSyncThreshold = 0.05f;
 
 	@ConfigEntry.Category("lods-windmill")
-	@Comment("Minimum rotation delta in degrees before LOD boxes update. (Default: 0.5)")
+	@Comment("Minimum rotation delta in degrees before LOD boxes update, never less than the keyframe step. (Default: 0.5)")
 	public float windmillRotationAngleRenderThreshold = 0.5f;
 
+	@ConfigEntry.Category("lods-windmill")
+	@Comment("Distance in blocks over which the rotation render threshold grows by its base value, so distant windmills update less often. Set to 0 to disable. (Default: 256.0)")
+	public float windmillRotationAngleRenderThresholdDistanceStride = 256.0f;
+
+	@ConfigEntry.Category("lods-windmill")
+	@Comment("Maximum number of windmill LOD box rebuilds per client tick. Larger and nearer windmills are rebuilt first, the rest wait for a later tick. (Default: 64)")
+	public int windmillRenderUpdateBudget = 64;
+
+	@ConfigEntry.Category("lods-windmill")
+	@Comment("Number of precomputed blade rotation keyframes per quarter turn. Higher values give smoother rotation at the cost of memory. (Default: 90)")
+	public int windmillRotationKeyframeResolution = 90;
+
 	@ConfigEntry.Category("lods-windmill")
 	@Comment("Maximum render distance in blocks for windmill LODs. (Default: 2048)")
 	public float windmillMaximumRenderDistance = 2048.0f;
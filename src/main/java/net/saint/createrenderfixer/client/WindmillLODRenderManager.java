@@ -1,9 +1,13 @@
 package net.saint.createrenderfixer.client;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -15,17 +19,18 @@ import com.seibel.distanthorizons.api.interfaces.render.IDhApiCustomRenderObject
 import com.seibel.distanthorizons.api.interfaces.render.IDhApiCustomRenderRegister;
 import com.seibel.distanthorizons.api.interfaces.render.IDhApiRenderableBoxGroup;
 import com.seibel.distanthorizons.api.objects.math.DhApiVec3d;
-import com.seibel.distanthorizons.api.objects.render.DhApiRenderableBox;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.phys.Vec3;
 import net.saint.createrenderfixer.Mod;
 import net.saint.createrenderfixer.ModClient;
 import net.saint.createrenderfixer.dh.DhBridge;
 import net.saint.createrenderfixer.dh.WindmillLODBoxUtil;
 import net.saint.createrenderfixer.dh.WindmillLODEntry;
+import net.saint.createrenderfixer.dh.WindmillLODKeyframeCache;
 
 public final class WindmillLODRenderManager {
 
@@ -37,10 +42,88 @@ public final class WindmillLODRenderManager {
 	private static final float HEIGHT_CLIP_DISTANCE_OVERRIDE = 1.0F;
 	private static final int HEIGHT_CLIP_DISTANCE_PADDING = 1_000;
 
+	private static final double RENDER_ANCHOR_QUERY_PADDING = 2.0;
+
+	private static final float MINIMUM_ROTATION_THRESHOLD = 0.01F;
+
+	private static final double NOT_VISIBLE = -1.0;
+
+	// Windmills are merged into one render group per 32x32 chunk cell.
+	private static final int REGION_SHIFT = 9;
+	private static final int REGION_SIZE = 1 << REGION_SHIFT;
+
+	// Library
+
+	/**
+	 * Camera and clip values that are constant for all windmills within one render tick.
+	 */
+	private record FrameState(@Nullable Vec3 cameraPosition, double maximumRenderDistanceSquared, float clipDistance,
+			double clipDistanceSquared) {
+	}
+
+	/**
+	 * Render anchor of an entry, one block off the bearing in its facing direction, cached with its region cell.
+	 */
+	private record RenderAnchor(WindmillLODEntry entry, double x, double y, double z, long regionKey) {
+
+		double distanceSquaredTo(Vec3 position) {
+			var deltaX = x - position.x;
+			var deltaY = y - position.y;
+			var deltaZ = z - position.z;
+
+			return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
+		}
+	}
+
+	/**
+	 * Contiguous range of boxes one windmill occupies in its region's render group.
+	 */
+	private static final class RegionSlot {
+		final WindmillLODEntry entry;
+		final RenderAnchor renderAnchor;
+		final int boxCount;
+		int boxStart;
+
+		RegionSlot(WindmillLODEntry entry, RenderAnchor renderAnchor, int boxStart, int boxCount) {
+			this.entry = entry;
+			this.renderAnchor = renderAnchor;
+			this.boxStart = boxStart;
+			this.boxCount = boxCount;
+		}
+	}
+
+	/**
+	 * Render group holding the boxes of all windmills in one region cell, positioned relative to the cell origin.
+	 * Changes to slots are collected and uploaded with a single box change per tick.
+	 */
+	private static final class RegionRenderGroup {
+		final IDhApiRenderableBoxGroup renderGroup;
+		final DhApiVec3d origin;
+		final Map<UUID, RegionSlot> slots = new HashMap<>();
+		boolean isDirty;
+
+		RegionRenderGroup(IDhApiRenderableBoxGroup renderGroup, DhApiVec3d origin) {
+			this.renderGroup = renderGroup;
+			this.origin = origin;
+		}
+	}
+
+	private record PendingBoxUpdate(RegionRenderGroup regionGroup, WindmillLODEntry entry, float renderAngle, double priority) {
+	}
+
+	private static final Comparator<PendingBoxUpdate> PENDING_BOX_UPDATE_ORDER = Comparator.comparingDouble(PendingBoxUpdate::priority)
+			.reversed();
+
 	// State
 
-	private static final Map<UUID, IDhApiRenderableBoxGroup> RENDER_GROUPS = new ConcurrentHashMap<>();
+	private static final Map<Long, RegionRenderGroup> REGION_GROUPS = new ConcurrentHashMap<>();
+	private static final Map<UUID, Long> REGION_KEYS_BY_CONTRAPTION = new ConcurrentHashMap<>();
 	private static final Map<UUID, Float> LAST_RENDER_ANGLES = new ConcurrentHashMap<>();
+	private static final Map<UUID, RenderAnchor> RENDER_ANCHORS = new ConcurrentHashMap<>();
+
+	// Region keys do not include the dimension, so all groups are torn down when the register or dimension changes.
+	private static IDhApiCustomRenderRegister activeRenderRegister;
+	private static String activeDimensionId;
 
 	// Ticking
 
@@ -62,117 +145,271 @@ public final class WindmillLODRenderManager {
 			return;
 		}
 
+		if (renderRegister != activeRenderRegister || !dimensionId.equals(activeDimensionId)) {
+			removeAllRegionGroups(activeRenderRegister);
+
+			activeRenderRegister = renderRegister;
+			activeDimensionId = dimensionId;
+		}
+
 		var activeIdentifiers = new HashSet<UUID>();
+		var frameState = getFrameStateForLevel(level, partialTicks);
+		var pendingBoxUpdates = new PriorityQueue<PendingBoxUpdate>(PENDING_BOX_UPDATE_ORDER);
 
-		for (var entry : ModClient.WINDMILL_LOD_MANAGER.entries()) {
-			if (!dimensionId.equals(entry.dimensionId)) {
-				continue;
-			}
+		for (var entry : getCandidateEntriesForDimension(dimensionId, frameState)) {
+			var renderAnchor = getRenderAnchorForEntry(entry);
+			var distanceSquared = getVisibleDistanceSquaredForEntry(level, frameState, entry, renderAnchor);
 
-			if (!shouldRenderEntryForLevel(level, entry, partialTicks)) {
+			if (distanceSquared == NOT_VISIBLE) {
 				continue;
 			}
 
 			activeIdentifiers.add(entry.contraptionId);
 
 			var renderAngle = updateRenderAngleForEntry(level, entry, partialTicks);
-			var renderGroup = getOrCreateRenderGroup(renderFactory, renderRegister, entry);
+			var regionGroup = getOrAddRegionSlot(renderFactory, renderRegister, entry, renderAnchor, renderAngle);
 
-			if (renderGroup == null) {
+			if (regionGroup == null) {
 				continue;
 			}
 
-			updateRenderGroup(renderGroup, entry, renderAngle);
+			updateRenderGroup(pendingBoxUpdates, regionGroup, entry, renderAngle, Math.sqrt(distanceSquared));
 		}
 
+		applyPendingBoxUpdates(pendingBoxUpdates);
 		removeStaleRenderGroups(activeIdentifiers, renderRegister);
+		triggerBoxChangesForDirtyRegions();
 	}
 
 	// Rendering
 
+	/**
+	 * Returns the region group holding the windmill's boxes, adding them to the group of its region cell if
+	 * needed. Windmills whose entry was replaced or that moved to another cell are removed and added again.
+	 */
 	@Nullable
-	private static IDhApiRenderableBoxGroup getOrCreateRenderGroup(IDhApiCustomRenderObjectFactory renderFactory,
-			IDhApiCustomRenderRegister renderRegister, WindmillLODEntry entry) {
-		var renderGroup = RENDER_GROUPS.get(entry.contraptionId);
+	private static RegionRenderGroup getOrAddRegionSlot(IDhApiCustomRenderObjectFactory renderFactory,
+			IDhApiCustomRenderRegister renderRegister, WindmillLODEntry entry, RenderAnchor renderAnchor, float renderAngle) {
+		var regionKey = renderAnchor.regionKey();
+		var regionGroup = REGION_GROUPS.get(regionKey);
+		var slot = regionGroup != null ? regionGroup.slots.get(entry.contraptionId) : null;
+		var boxCount = WindmillLODBoxUtil.getBladeBoxCount(entry);
+
+		if (slot != null && slot.entry == entry && slot.boxCount == boxCount) {
+			entry.renderGroupId = regionGroup.renderGroup.getId();
+			return regionGroup;
+		}
 
-		if (renderGroup != null) {
-			entry.renderGroupId = renderGroup.getId();
-			return renderGroup;
+		removeRegionSlot(renderRegister, entry.contraptionId);
+
+		if (boxCount == 0) {
+			return null;
 		}
 
-		var resourceLocation = Mod.MOD_ID + ":windmill/" + entry.contraptionId;
-		var originPosition = toOrigin(getRenderAnchorPositionForEntry(entry));
-		var crossBoxes = getWindmillCrossBoxesForEntry(entry, entry.rotationAngle);
+		regionGroup = REGION_GROUPS.get(regionKey);
 
-		try {
-			renderGroup = renderFactory.createRelativePositionedGroup(resourceLocation, originPosition, crossBoxes);
-			renderGroup.setOriginBlockPos(originPosition);
+		if (regionGroup == null) {
+			regionGroup = createRegionGroup(renderFactory, renderRegister, regionKey, renderAnchor);
 
+			if (regionGroup == null) {
+				return null;
+			}
+		}
+
+		var boxes = regionGroup.renderGroup;
+		var boxStart = boxes.size();
+		boxes.addAll(WindmillLODBoxUtil.makeEmptyBoxes(boxCount, getBladeColor(), getBladeMaterial()));
+
+		slot = new RegionSlot(entry, renderAnchor, boxStart, boxCount);
+		writeRegionSlotBoxes(regionGroup, slot, renderAngle);
+
+		regionGroup.slots.put(entry.contraptionId, slot);
+		REGION_KEYS_BY_CONTRAPTION.put(entry.contraptionId, regionKey);
+		LAST_RENDER_ANGLES.put(entry.contraptionId, renderAngle);
+		entry.renderGroupId = regionGroup.renderGroup.getId();
+
+		return regionGroup;
+	}
+
+	@Nullable
+	private static RegionRenderGroup createRegionGroup(IDhApiCustomRenderObjectFactory renderFactory,
+			IDhApiCustomRenderRegister renderRegister, long regionKey, RenderAnchor renderAnchor) {
+		var regionX = ChunkPos.getX(regionKey);
+		var regionZ = ChunkPos.getZ(regionKey);
+		var resourceLocation = Mod.MOD_ID + ":windmill/region_" + regionX + "_" + regionZ;
+
+		// Centered in the cell at the height of the first windmill, boxes are positioned relative to it.
+		var origin = new DhApiVec3d((regionX << REGION_SHIFT) + REGION_SIZE / 2.0, Math.floor(renderAnchor.y()),
+				(regionZ << REGION_SHIFT) + REGION_SIZE / 2.0);
+
+		try {
+			var renderGroup = renderFactory.createRelativePositionedGroup(resourceLocation, origin, new ArrayList<>());
 			renderRegister.add(renderGroup);
-			entry.renderGroupId = renderGroup.getId();
-			RENDER_GROUPS.put(entry.contraptionId, renderGroup);
+
+			var regionGroup = new RegionRenderGroup(renderGroup, origin);
+			REGION_GROUPS.put(regionKey, regionGroup);
+
+			return regionGroup;
 		} catch (IllegalArgumentException exception) {
 			Mod.LOGGER.warn("Failed to register windmill render group '{}'.", resourceLocation, exception);
 
 			return null;
 		}
-
-		return renderGroup;
 	}
 
-	private static void updateRenderGroup(IDhApiRenderableBoxGroup renderGroup, WindmillLODEntry entry, float renderAngle) {
-		var originPosition = toOrigin(getRenderAnchorPositionForEntry(entry));
-		renderGroup.setOriginBlockPos(originPosition);
+	/**
+	 * Removes the windmill's boxes from its region group, shifting the slots behind it. Empty region groups are
+	 * unregistered from DH.
+	 */
+	private static void removeRegionSlot(IDhApiCustomRenderRegister renderRegister, UUID contraptionId) {
+		var regionKey = REGION_KEYS_BY_CONTRAPTION.remove(contraptionId);
+		LAST_RENDER_ANGLES.remove(contraptionId);
 
-		var lastAngle = LAST_RENDER_ANGLES.get(entry.contraptionId);
+		if (regionKey == null) {
+			return;
+		}
+
+		var regionGroup = REGION_GROUPS.get(regionKey);
+		var slot = regionGroup != null ? regionGroup.slots.remove(contraptionId) : null;
 
-		if (lastAngle != null) {
-			var rotationDelta = getRotationDeltaForAngles(lastAngle, renderAngle);
-			var rotationUpdateThreshold = Mod.CONFIG.windmillRotationAngleRenderThreshold;
+		if (slot == null) {
+			return;
+		}
 
-			if (rotationDelta < rotationUpdateThreshold) {
-				return;
+		if (regionGroup.slots.isEmpty()) {
+			REGION_GROUPS.remove(regionKey);
+			unregisterRegionGroup(renderRegister, regionGroup);
+
+			return;
+		}
+
+		var boxes = regionGroup.renderGroup;
+
+		for (var index = slot.boxStart + slot.boxCount - 1; index >= slot.boxStart; index--) {
+			boxes.remove(index);
+		}
+
+		for (var otherSlot : regionGroup.slots.values()) {
+			if (otherSlot.boxStart > slot.boxStart) {
+				otherSlot.boxStart -= slot.boxCount;
 			}
 		}
 
-		updateRenderGroupBoxes(renderGroup, entry, renderAngle);
-		LAST_RENDER_ANGLES.put(entry.contraptionId, renderAngle);
+		regionGroup.isDirty = true;
 	}
 
-	private static void removeStaleRenderGroups(HashSet<UUID> activeIdentifiers, IDhApiCustomRenderRegister renderRegister) {
-		var iterator = RENDER_GROUPS.entrySet().iterator();
+	/**
+	 * Removes every region group, used when the level or dimension changes and the previous groups no longer
+	 * belong to the current render register.
+	 */
+	private static void removeAllRegionGroups(@Nullable IDhApiCustomRenderRegister renderRegister) {
+		for (var regionGroup : REGION_GROUPS.values()) {
+			unregisterRegionGroup(renderRegister, regionGroup);
+		}
+
+		REGION_GROUPS.clear();
+		REGION_KEYS_BY_CONTRAPTION.clear();
+		LAST_RENDER_ANGLES.clear();
+	}
+
+	private static void unregisterRegionGroup(@Nullable IDhApiCustomRenderRegister renderRegister, RegionRenderGroup regionGroup) {
+		regionGroup.renderGroup.setActive(false);
+
+		if (renderRegister == null) {
+			return;
+		}
+
+		try {
+			renderRegister.remove(regionGroup.renderGroup.getId());
+		} catch (Exception exception) {
+			// DH may reject removal while it is still initializing, can be ignored.
+		}
+	}
+
+	/**
+	 * Queues a box rebuild if the windmill turned past its distance-scaled threshold since its last rebuild.
+	 * Rebuilds are prioritized by how far past the threshold the windmill is, weighted by its projected size.
+	 */
+	private static void updateRenderGroup(PriorityQueue<PendingBoxUpdate> pendingBoxUpdates, RegionRenderGroup regionGroup,
+			WindmillLODEntry entry, float renderAngle, double distance) {
+		// Seeded when the windmill's slot is added, so every windmill with a region group has a last angle.
+		var lastAngle = LAST_RENDER_ANGLES.get(entry.contraptionId);
+		var rotationDelta = getRotationDeltaForAngles(lastAngle, renderAngle);
+		var rotationUpdateThreshold = getRotationAngleRenderThresholdForDistance(distance);
+
+		if (rotationDelta < rotationUpdateThreshold) {
+			return;
+		}
+
+		var projectedSize = Math.max(1.0F, entry.bladeGeometry.length()) / Math.max(1.0, distance);
+		var priority = rotationDelta / Math.max(rotationUpdateThreshold, MINIMUM_ROTATION_THRESHOLD) * projectedSize;
+
+		pendingBoxUpdates.add(new PendingBoxUpdate(regionGroup, entry, renderAngle, priority));
+	}
 
-		while (iterator.hasNext()) {
-			var entry = iterator.next();
-			var contraptionId = entry.getKey();
+	/**
+	 * Rewrites queued windmill slots in priority order up to the per-tick budget. Skipped windmills keep their
+	 * last angle and are queued again on the next tick with a larger delta.
+	 */
+	private static void applyPendingBoxUpdates(PriorityQueue<PendingBoxUpdate> pendingBoxUpdates) {
+		var budget = Math.max(1, Mod.CONFIG.windmillRenderUpdateBudget);
 
-			if (activeIdentifiers.contains(contraptionId)) {
+		for (var index = 0; index < budget && !pendingBoxUpdates.isEmpty(); index++) {
+			var pendingBoxUpdate = pendingBoxUpdates.poll();
+			var regionGroup = pendingBoxUpdate.regionGroup();
+			var entry = pendingBoxUpdate.entry();
+			var slot = regionGroup.slots.get(entry.contraptionId);
+
+			if (slot == null) {
 				continue;
 			}
 
-			var renderGroup = entry.getValue();
-			renderGroup.setActive(false);
+			writeRegionSlotBoxes(regionGroup, slot, pendingBoxUpdate.renderAngle());
+			LAST_RENDER_ANGLES.put(entry.contraptionId, pendingBoxUpdate.renderAngle());
+		}
+	}
 
-			try {
-				renderRegister.remove(renderGroup.getId());
-			} catch (Exception exception) {
-				// DH may reject removal while it is still initializing, can be ignored.
+	private static void triggerBoxChangesForDirtyRegions() {
+		for (var regionGroup : REGION_GROUPS.values()) {
+			if (!regionGroup.isDirty) {
+				continue;
 			}
 
-			iterator.remove();
-			LAST_RENDER_ANGLES.remove(contraptionId);
+			regionGroup.renderGroup.triggerBoxChange();
+			regionGroup.isDirty = false;
 		}
 	}
 
-	// Geometry
+	private static float getRotationAngleRenderThresholdForDistance(double distance) {
+		// Rebuilding below the keyframe step can snap to the same keyframe and rewrite identical boxes.
+		var baseThreshold = Math.max(Mod.CONFIG.windmillRotationAngleRenderThreshold, WindmillLODKeyframeCache.getKeyframeStepDegrees());
+		var distanceStride = Mod.CONFIG.windmillRotationAngleRenderThresholdDistanceStride;
 
-	private static List<DhApiRenderableBox> getWindmillCrossBoxesForEntry(WindmillLODEntry entry, float rotationAngle) {
-		var bladeColor = getBladeColor();
-		var bladeMaterial = getBladeMaterial();
+		if (distanceStride <= 0.0F) {
+			return baseThreshold;
+		}
 
-		return WindmillLODBoxUtil.makeWindmillBladeBoxes(entry, bladeColor, bladeMaterial, rotationAngle);
+		return (float) (baseThreshold * (1.0 + distance / distanceStride));
 	}
 
+	private static void removeStaleRenderGroups(HashSet<UUID> activeIdentifiers, IDhApiCustomRenderRegister renderRegister) {
+		var staleIdentifiers = new ArrayList<UUID>();
+
+		for (var contraptionId : REGION_KEYS_BY_CONTRAPTION.keySet()) {
+			if (!activeIdentifiers.contains(contraptionId)) {
+				staleIdentifiers.add(contraptionId);
+			}
+		}
+
+		for (var contraptionId : staleIdentifiers) {
+			removeRegionSlot(renderRegister, contraptionId);
+		}
+
+		RENDER_ANCHORS.keySet().removeIf(contraptionId -> ModClient.WINDMILL_LOD_MANAGER.find(contraptionId) == null);
+	}
+
+	// Geometry
+
 	private static Color getBladeColor() {
 		return ModClient.WINDMILL_LOD_MATERIAL_MANAGER.getBladeColor();
 	}
@@ -181,34 +418,47 @@ public final class WindmillLODRenderManager {
 		return ModClient.WINDMILL_LOD_MATERIAL_MANAGER.getBladeMaterial();
 	}
 
-	private static void updateRenderGroupBoxes(IDhApiRenderableBoxGroup renderGroup, WindmillLODEntry entry, float renderAngle) {
-		var updatedBoxes = getWindmillCrossBoxesForEntry(entry, renderAngle);
+	/**
+	 * Copies the keyframe nearest to the angle into the windmill's slot, translated from the windmill's render
+	 * anchor into the region group's relative space.
+	 */
+	private static void writeRegionSlotBoxes(RegionRenderGroup regionGroup, RegionSlot slot, float renderAngle) {
+		var keyframes = ModClient.WINDMILL_LOD_KEYFRAME_CACHE.getKeyframes(slot.entry);
+		var keyframeOffset = WindmillLODKeyframeCache.getKeyframeOffset(keyframes, slot.boxCount, renderAngle);
 
-		if (renderGroup.size() != updatedBoxes.size()) {
-			renderGroup.clear();
-			renderGroup.addAll(updatedBoxes);
-			renderGroup.triggerBoxChange();
+		var renderAnchor = slot.renderAnchor;
+		var translationX = renderAnchor.x() - regionGroup.origin.x;
+		var translationY = renderAnchor.y() - regionGroup.origin.y;
+		var translationZ = renderAnchor.z() - regionGroup.origin.z;
 
-			return;
-		}
+		WindmillLODBoxUtil.applyWindmillBladeBoxes(keyframes, keyframeOffset, slot.boxCount, regionGroup.renderGroup, slot.boxStart,
+				translationX, translationY, translationZ, getBladeColor(), getBladeMaterial());
+
+		regionGroup.isDirty = true;
+	}
+
+	// Utility
 
-		for (var index = 0; index < updatedBoxes.size(); index++) {
-			var updatedBox = updatedBoxes.get(index);
-			var existingBox = renderGroup.get(index);
+	/**
+	 * Returns the cached render anchor of the entry, computed on first use and whenever the entry was replaced.
+	 */
+	private static RenderAnchor getRenderAnchorForEntry(WindmillLODEntry entry) {
+		var renderAnchor = RENDER_ANCHORS.get(entry.contraptionId);
 
-			existingBox.minPos = updatedBox.minPos;
-			existingBox.maxPos = updatedBox.maxPos;
-			existingBox.color = updatedBox.color;
-			existingBox.material = updatedBox.material;
+		if (renderAnchor != null && renderAnchor.entry() == entry) {
+			return renderAnchor;
 		}
 
-		renderGroup.triggerBoxChange();
-	}
+		var anchorPosition = getRenderAnchorPositionForEntry(entry);
+		var x = anchorPosition.getX() + 0.5;
+		var y = anchorPosition.getY() + 0.5;
+		var z = anchorPosition.getZ() + 0.5;
+		var regionKey = ChunkPos.asLong(anchorPosition.getX() >> REGION_SHIFT, anchorPosition.getZ() >> REGION_SHIFT);
 
-	// Utility
+		renderAnchor = new RenderAnchor(entry, x, y, z, regionKey);
+		RENDER_ANCHORS.put(entry.contraptionId, renderAnchor);
 
-	private static DhApiVec3d toOrigin(BlockPos anchorPosition) {
-		return new DhApiVec3d(anchorPosition.getX() + 0.5, anchorPosition.getY() + 0.5, anchorPosition.getZ() + 0.5);
+		return renderAnchor;
 	}
 
 	private static BlockPos getRenderAnchorPositionForEntry(WindmillLODEntry entry) {
@@ -225,41 +475,55 @@ public final class WindmillLODRenderManager {
 		return level.dimension().location().toString();
 	}
 
-	private static boolean shouldRenderEntryForLevel(ClientLevel level, WindmillLODEntry entry, float partialTicks) {
-		if (level == null || entry == null) {
-			return false;
-		}
+	private static Collection<WindmillLODEntry> getCandidateEntriesForDimension(String dimensionId, FrameState frameState) {
+		var cameraPosition = frameState.cameraPosition();
 
-		var cameraPosition = getCameraPosition();
+		if (cameraPosition == null) {
+			return ModClient.WINDMILL_LOD_MANAGER.entriesInDimension(dimensionId);
+		}
 
-		if (cameraPosition != null) {
-			var originPosition = getRenderAnchorPositionForEntry(entry);
-			var distance = getDistanceToCamera(cameraPosition, originPosition);
-			var maximumRenderDistance = Mod.CONFIG.windmillMaximumRenderDistance;
+		// Render anchors sit one block off the indexed bearing anchor, pad the query so none are missed.
+		var queryRadius = Mod.CONFIG.windmillMaximumRenderDistance + RENDER_ANCHOR_QUERY_PADDING;
 
-			if (distance > maximumRenderDistance) {
-				return false;
-			}
-		}
+		return ModClient.WINDMILL_LOD_MANAGER.entriesWithinRadius(dimensionId, cameraPosition.x, cameraPosition.y, cameraPosition.z,
+				queryRadius);
+	}
 
+	private static FrameState getFrameStateForLevel(ClientLevel level, float partialTicks) {
+		var cameraPosition = getCameraPosition();
+		var maximumRenderDistance = (double) Mod.CONFIG.windmillMaximumRenderDistance;
 		var clipDistance = getClipDistanceForLevel(level, partialTicks);
 
 		if (clipDistance > 0.0F) {
 			clipDistance += LOD_CLIP_DISTANCE_OFFSET;
 		}
 
-		if (clipDistance <= 0.0F) {
-			return !isChunkLoadedForEntry(level, entry);
+		return new FrameState(cameraPosition, maximumRenderDistance * maximumRenderDistance, clipDistance,
+				(double) clipDistance * clipDistance);
+	}
+
+	/**
+	 * Returns the squared camera distance of a visible entry, zero without a camera, or `NOT_VISIBLE` if the
+	 * entry is out of range or close enough to be rendered by its real blocks.
+	 */
+	private static double getVisibleDistanceSquaredForEntry(ClientLevel level, FrameState frameState, WindmillLODEntry entry,
+			RenderAnchor renderAnchor) {
+		var cameraPosition = frameState.cameraPosition();
+		var distanceSquared = cameraPosition != null ? renderAnchor.distanceSquaredTo(cameraPosition) : 0.0;
+
+		if (cameraPosition != null && distanceSquared > frameState.maximumRenderDistanceSquared()) {
+			return NOT_VISIBLE;
 		}
 
-		if (cameraPosition == null) {
-			return true;
+		if (frameState.clipDistance() <= 0.0F) {
+			return isChunkLoadedForEntry(level, entry) ? NOT_VISIBLE : distanceSquared;
 		}
 
-		var originPosition = getRenderAnchorPositionForEntry(entry);
-		var distance = getDistanceToCamera(cameraPosition, originPosition);
+		if (cameraPosition == null) {
+			return distanceSquared;
+		}
 
-		return distance >= clipDistance;
+		return distanceSquared >= frameState.clipDistanceSquared() ? distanceSquared : NOT_VISIBLE;
 	}
 
 	private static boolean isChunkLoadedForEntry(ClientLevel level, WindmillLODEntry entry) {
@@ -323,18 +587,6 @@ public final class WindmillLODRenderManager {
 		return camera.getPosition();
 	}
 
-	private static double getDistanceToCamera(Vec3 cameraPosition, BlockPos originPosition) {
-		var originX = originPosition.getX() + 0.5;
-		var originY = originPosition.getY() + 0.5;
-		var originZ = originPosition.getZ() + 0.5;
-
-		var deltaX = originX - cameraPosition.x;
-		var deltaY = originY - cameraPosition.y;
-		var deltaZ = originZ - cameraPosition.z;
-
-		return Math.sqrt(deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ);
-	}
-
 	private static float updateRenderAngleForEntry(ClientLevel level, WindmillLODEntry entry, float partialTicks) {
 		var currentTick = level.getGameTime();
 		var lastSynchronizationTick = entry.lastSynchronizationTick;
@@ -0,0 +1,95 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Append-only table of distinct block state and biome pairs shared by all stored contraption blocks.
+ * Blocks reference entries by int id so each pair and biome string is held once.
+ */
+public final class ContraptionBlockPalette {
+
+	// Configuration
+
+	public static final int NO_ENTRY = -1;
+
+	// State
+
+	private final Map<ContraptionBlockRegistry.LookupResult, Integer> idsByEntry = new ConcurrentHashMap<>();
+	private final Map<ResourceKey<Biome>, String> biomeIdsByKey = new ConcurrentHashMap<>();
+	private final Map<String, String> internedBiomeIds = new ConcurrentHashMap<>();
+
+	private volatile ContraptionBlockRegistry.LookupResult[] entries = new ContraptionBlockRegistry.LookupResult[64];
+	private int size;
+
+	// Access
+
+	@Nullable
+	public ContraptionBlockRegistry.LookupResult get(int id) {
+		var currentEntries = entries;
+
+		if (id < 0 || id >= currentEntries.length) {
+			return null;
+		}
+
+		return currentEntries[id];
+	}
+
+	public int getId(BlockState state, @Nullable String biomeId) {
+		var entry = new ContraptionBlockRegistry.LookupResult(state, internBiomeId(biomeId));
+		var existingId = idsByEntry.get(entry);
+
+		if (existingId != null) {
+			return existingId;
+		}
+
+		return addEntry(entry);
+	}
+
+	// Biomes
+
+	public String getBiomeId(ResourceKey<Biome> biomeKey) {
+		return biomeIdsByKey.computeIfAbsent(biomeKey, key -> internBiomeId(key.location().toString()));
+	}
+
+	@Nullable
+	public String internBiomeId(@Nullable String biomeId) {
+		if (biomeId == null) {
+			return null;
+		}
+
+		return internedBiomeIds.computeIfAbsent(biomeId, key -> key);
+	}
+
+	// Mutation
+
+	private synchronized int addEntry(ContraptionBlockRegistry.LookupResult entry) {
+		var existingId = idsByEntry.get(entry);
+
+		if (existingId != null) {
+			return existingId;
+		}
+
+		var id = size;
+		var currentEntries = entries;
+
+		if (id >= currentEntries.length) {
+			currentEntries = Arrays.copyOf(currentEntries, currentEntries.length * 2);
+		}
+
+		currentEntries[id] = entry;
+		entries = currentEntries;
+		size++;
+
+		idsByEntry.put(entry, id);
+
+		return id;
+	}
+}
@@ -1,30 +1,34 @@
 package net.saint.createrenderfixer.dh;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.jetbrains.annotations.Nullable;
 
-import com.seibel.distanthorizons.api.DhApi;
-import com.seibel.distanthorizons.api.interfaces.world.IDhApiLevelWrapper;
-import com.seibel.distanthorizons.api.methods.events.abstractEvents.DhApiChunkModifiedEvent;
 import com.simibubi.create.content.contraptions.AbstractContraptionEntity;
 import com.simibubi.create.content.contraptions.Contraption;
 import com.simibubi.create.content.contraptions.ControlledContraptionEntity;
 import com.simibubi.create.content.contraptions.bearing.WindmillBearingBlockEntity;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.Holder;
+import net.minecraft.core.QuartPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.phys.AABB;
 import net.saint.createrenderfixer.Mod;
 import net.saint.createrenderfixer.mixin.create.ControlledContraptionEntityAccessor;
@@ -45,29 +49,24 @@ public final class ContraptionBlockRegistry {
 
 	// Library (Models)
 
-	private static final class BlockPosState {
-		final int x;
-		final int y;
-		final int z;
-		final BlockState state;
-		final String biomeId;
-
-		BlockPosState(BlockPos pos, BlockState state, String biomeId) {
-			this.x = pos.getX();
-			this.y = pos.getY();
-			this.z = pos.getZ();
-			this.state = state;
-			this.biomeId = biomeId;
-		}
+	/**
+	 * Blocks contributed by a single contraption to one chunk, as packed local positions and palette ids.
+	 */
+	private record ChunkBlocks(long[] positions, int[] paletteIds) {
+	}
 
-		boolean matches(int x, int y, int z) {
-			return this.x == x && this.y == y && this.z == z;
-		}
+	/**
+	 * Immutable copy of a contraption's blocks captured on the server thread for background indexing.
+	 */
+	private record RegistrationSnapshot(UUID contraptionId, String dimensionId, long[] worldPositions, BlockState[] states,
+			Long2ObjectOpenHashMap<LevelChunk> chunks) {
 	}
 
 	private static final class ContraptionEntry {
 		final String dimensionId;
-		final Map<Long, List<BlockPosState>> chunks = new ConcurrentHashMap<>();
+
+		// Populated by the indexing task, read by later tasks on the same worker.
+		volatile Map<Long, ChunkBlocks> chunks = Map.of();
 
 		ContraptionEntry(String dimensionId) {
 			this.dimensionId = dimensionId;
@@ -78,10 +77,19 @@ public final class ContraptionBlockRegistry {
 			Direction.Axis rotationAxis, Direction bearingDirection, AABB bounds) {
 	}
 
+	// Configuration
+
+	private static final String DEFAULT_BIOME_ID = "minecraft:plains";
+
 	// State
 
+	private static final ContraptionBlockPalette PALETTE = new ContraptionBlockPalette();
+
 	private static final Map<UUID, ContraptionEntry> CONTRAPTIONS = new ConcurrentHashMap<>();
-	private static final Map<String, Map<Long, List<BlockPosState>>> BY_DIMENSION = new ConcurrentHashMap<>();
+	private static final Map<String, Map<Long, ContraptionChunkIndex>> BY_DIMENSION = new ConcurrentHashMap<>();
+
+	// Regions changed since they were last captured for saving, keyed by dimension.
+	private static final Map<String, Set<Long>> DIRTY_REGIONS = new ConcurrentHashMap<>();
 
 	// Registration
 
@@ -101,7 +109,6 @@ public final class ContraptionBlockRegistry {
 
 		var anchorPosition = contraption.anchor;
 		var dimensionId = serverLevel.dimension().location().toString();
-		var entry = new ContraptionEntry(dimensionId);
 
 		if (anchorPosition == null) {
 			Mod.LOGGER.warn("Contraption '{}' has no anchor block position and can not be registered.", contraptionId);
@@ -117,26 +124,12 @@ public final class ContraptionBlockRegistry {
 			return;
 		}
 
-		contraption.getBlocks().forEach((localPosition, info) -> {
-			var worldPosition = localPosition.offset(anchorPosition);
-			var biomeIdentifier = resolveBiomeId(serverLevel, worldPosition);
-			var chunkPosition = new ChunkPos(worldPosition);
-			var chunkKey = chunkPosition.toLong();
-
-			entry.chunks.computeIfAbsent(chunkKey, key -> new ArrayList<>())
-					.add(new BlockPosState(worldPosition, info.state(), biomeIdentifier));
-		});
+		var snapshot = captureRegistrationSnapshot(serverLevel, contraptionId, dimensionId, contraption, anchorPosition);
+		var entry = new ContraptionEntry(dimensionId);
 
 		CONTRAPTIONS.put(contraptionId, entry);
 
-		var dimensionChunkMap = BY_DIMENSION.computeIfAbsent(dimensionId, key -> new ConcurrentHashMap<>());
-
-		for (var chunkEntry : entry.chunks.entrySet()) {
-			var combinedList = dimensionChunkMap.computeIfAbsent(chunkEntry.getKey(), key -> createSharedChunkList());
-			combinedList.addAll(chunkEntry.getValue());
-		}
-
-		notifyChunksDirty(dimensionId, entry.chunks.keySet());
+		ContraptionTaskQueue.submit("register " + contraptionId, () -> indexRegistrationSnapshot(snapshot, entry));
 	}
 
 	public static void unregister(AbstractContraptionEntity entity) {
@@ -158,8 +151,12 @@ public final class ContraptionBlockRegistry {
 	}
 
 	public static void clearForWorld(String dimensionId) {
-		BY_DIMENSION.remove(dimensionId);
 		CONTRAPTIONS.entrySet().removeIf(e -> e.getValue().dimensionId.equals(dimensionId));
+		ContraptionTaskQueue.submit("clear " + dimensionId, () -> {
+			BY_DIMENSION.remove(dimensionId);
+			DIRTY_REGIONS.remove(dimensionId);
+		});
+		DhDirtyChunkQueue.clearForWorld(dimensionId);
 
 		Mod.WINDMILL_LOD_MANAGER.clearForWorld(dimensionId);
 	}
@@ -214,118 +211,167 @@ public final class ContraptionBlockRegistry {
 			return null;
 		}
 
-		var chunkPosition = new ChunkPos(new BlockPos(worldX, worldY, worldZ));
-		var chunkKey = chunkPosition.toLong();
-		var entries = chunkMap.get(chunkKey);
+		var chunkKey = ChunkPos.asLong(worldX >> 4, worldZ >> 4);
+		var chunkIndex = chunkMap.get(chunkKey);
 
-		if (entries == null) {
+		if (chunkIndex == null) {
 			return null;
 		}
 
-		for (var entry : entries) {
-			if (entry.matches(worldX, worldY, worldZ)) {
-				return new LookupResult(entry.state, entry.biomeId);
-			}
-		}
-
-		return null;
+		return chunkIndex.find(worldX & 15, worldY, worldZ & 15);
 	}
 
-	public static int highestYInColumn(String dimensionId, int worldX, int worldZ, int defaultHeight) {
+	/**
+	 * Returns the block index for the given chunk or `null` if no contraption blocks are stored in it.
+	 * Intended to be resolved once per chunk bake so chunks without contraptions skip per-block lookups.
+	 */
+	@Nullable
+	public static ContraptionChunkIndex findChunkIndex(String dimensionId, int chunkX, int chunkZ) {
 		var chunkMap = resolveChunkMap(dimensionId);
 
 		if (chunkMap == null) {
-			return defaultHeight;
+			return null;
 		}
 
-		var chunkKey = ChunkPos.asLong(new BlockPos(worldX, 0, worldZ));
-		var entries = chunkMap.get(chunkKey);
+		var chunkIndex = chunkMap.get(ChunkPos.asLong(chunkX, chunkZ));
 
-		if (entries == null || entries.isEmpty()) {
-			return defaultHeight;
+		if (chunkIndex == null || chunkIndex.isEmpty()) {
+			return null;
 		}
 
-		var maxY = Integer.MIN_VALUE;
+		return chunkIndex;
+	}
 
-		for (var entry : entries) {
-			if (entry.x == worldX && entry.z == worldZ) {
-				if (entry.y > maxY) {
-					maxY = entry.y;
-				}
-			}
+	// Management
+
+	public static ContraptionBlockPalette palette() {
+		return PALETTE;
+	}
+
+	/**
+	 * Adds chunk snapshots read from storage to a dimension, after any blocks registered in the meantime.
+	 * Must run on the registry worker (see `ContraptionTaskQueue`) so saves never capture a partial merge.
+	 * Chunks from storage that predates region files are marked changed so they are written on the next save.
+	 */
+	public static void mergePersistentChunks(String dimensionId, Map<Long, ContraptionChunkIndex> chunks, boolean isMigrated) {
+		if (chunks.isEmpty()) {
+			return;
 		}
 
-		if (maxY == Integer.MIN_VALUE) {
-			return defaultHeight;
+		var chunkMap = BY_DIMENSION.computeIfAbsent(dimensionId, key -> new ConcurrentHashMap<>());
+
+		for (var chunkEntry : chunks.entrySet()) {
+			chunkMap.merge(chunkEntry.getKey(), chunkEntry.getValue(), ContraptionChunkIndex::withAdded);
 		}
 
-		return Math.max(defaultHeight, maxY);
+		if (isMigrated) {
+			notifyChunksChanged(dimensionId, chunks.keySet());
+		} else {
+			notifyChunksDirty(dimensionId, chunks.keySet());
+		}
 	}
 
-	// Management
-
-	public static Map<String, Map<Long, List<StoredBlock>>> snapshot() {
-		var result = new ConcurrentHashMap<String, Map<Long, List<StoredBlock>>>();
+	/**
+	 * Converts blocks read from the legacy NBT layout into chunk snapshots.
+	 */
+	public static Map<Long, ContraptionChunkIndex> indexLegacyChunks(Map<Long, List<StoredBlock>> chunks) {
+		var chunkMap = new HashMap<Long, ContraptionChunkIndex>();
+
+		for (var chunkEntry : chunks.entrySet()) {
+			var blocks = chunkEntry.getValue();
+			var positions = new long[blocks.size()];
+			var paletteIds = new int[blocks.size()];
+
+			for (var index = 0; index < blocks.size(); index++) {
+				var block = blocks.get(index);
+				positions[index] = ContraptionChunkIndex.packLocalPosition(block.x(), block.y(), block.z());
+				paletteIds[index] = PALETTE.getId(block.state(), block.biomeId());
+			}
 
-		BY_DIMENSION.forEach((dimensionId, chunkMap) -> {
-			var chunkCopy = new ConcurrentHashMap<Long, List<StoredBlock>>();
+			chunkMap.put(chunkEntry.getKey(), ContraptionChunkIndex.create(PALETTE, positions, paletteIds));
+		}
 
-			chunkMap.forEach((chunkKey, entries) -> {
-				var list = new ArrayList<StoredBlock>(entries.size());
-				for (var entry : entries) {
-					list.add(new StoredBlock(entry.x, entry.y, entry.z, entry.state, entry.biomeId));
-				}
-				chunkCopy.put(chunkKey, list);
-			});
+		return chunkMap;
+	}
 
-			result.put(dimensionId, chunkCopy);
-		});
+	/**
+	 * Captures the chunks of every region changed since the last capture and clears their dirty marks.
+	 * Runs on the registry worker after all queued changes, regions without blocks map to an empty chunk map.
+	 */
+	public static CompletableFuture<Map<String, Map<Long, Map<Long, ContraptionChunkIndex>>>> captureDirtyRegions() {
+		return ContraptionTaskQueue.supply("capture dirty regions", ContraptionBlockRegistry::captureDirtyRegionsInternal);
+	}
 
-		return result;
+	/**
+	 * Marks a region as changed again, e.g. after writing it failed.
+	 */
+	public static void markRegionDirty(String dimensionId, long regionKey) {
+		DIRTY_REGIONS.computeIfAbsent(dimensionId, key -> ConcurrentHashMap.newKeySet()).add(regionKey);
 	}
 
-	public static void loadPersistent(Map<String, Map<Long, List<StoredBlock>>> data) {
-		BY_DIMENSION.clear();
+	private static Map<String, Map<Long, Map<Long, ContraptionChunkIndex>>> captureDirtyRegionsInternal() {
+		var result = new HashMap<String, Map<Long, Map<Long, ContraptionChunkIndex>>>();
 
-		for (var entry : data.entrySet()) {
-			var chunkMap = new ConcurrentHashMap<Long, List<BlockPosState>>();
+		for (var dimensionEntry : DIRTY_REGIONS.entrySet()) {
+			var chunkMap = BY_DIMENSION.getOrDefault(dimensionEntry.getKey(), Map.of());
+			var regions = new HashMap<Long, Map<Long, ContraptionChunkIndex>>();
+			var iterator = dimensionEntry.getValue().iterator();
 
-			for (var chunkEntry : entry.getValue().entrySet()) {
-				var list = createSharedChunkList();
-				for (var block : chunkEntry.getValue()) {
-					list.add(new BlockPosState(new BlockPos(block.x(), block.y(), block.z()), block.state(), block.biomeId()));
-				}
+			while (iterator.hasNext()) {
+				var regionKey = iterator.next();
+				iterator.remove();
 
-				chunkMap.put(chunkEntry.getKey(), list);
+				regions.put(regionKey, collectRegionChunks(chunkMap, regionKey));
 			}
 
-			BY_DIMENSION.put(entry.getKey(), chunkMap);
-			notifyChunksDirty(entry.getKey(), chunkMap.keySet());
+			if (!regions.isEmpty()) {
+				result.put(dimensionEntry.getKey(), regions);
+			}
 		}
+
+		return result;
 	}
 
-	private static void notifyChunksDirty(String dimensionId, Iterable<Long> chunkKeys) {
-		if (!DhBridge.isReady()) {
-			return;
-		}
+	private static Map<Long, ContraptionChunkIndex> collectRegionChunks(Map<Long, ContraptionChunkIndex> chunkMap, long regionKey) {
+		var regionChunks = new HashMap<Long, ContraptionChunkIndex>();
+		var minChunkX = ChunkPos.getX(regionKey) << ContraptionRegionCodec.REGION_SHIFT;
+		var minChunkZ = ChunkPos.getZ(regionKey) << ContraptionRegionCodec.REGION_SHIFT;
+		var regionSize = 1 << ContraptionRegionCodec.REGION_SHIFT;
 
-		var levelWrapper = resolveLevelWrapper(dimensionId);
+		for (var chunkX = minChunkX; chunkX < minChunkX + regionSize; chunkX++) {
+			for (var chunkZ = minChunkZ; chunkZ < minChunkZ + regionSize; chunkZ++) {
+				var chunkKey = ChunkPos.asLong(chunkX, chunkZ);
+				var chunkIndex = chunkMap.get(chunkKey);
 
-		if (levelWrapper == null) {
-			return;
+				if (chunkIndex != null && !chunkIndex.isEmpty()) {
+					regionChunks.put(chunkKey, chunkIndex);
+				}
+			}
 		}
 
+		return regionChunks;
+	}
+
+	private static void markRegionsDirty(String dimensionId, Iterable<Long> chunkKeys) {
+		var dirtyRegions = DIRTY_REGIONS.computeIfAbsent(dimensionId, key -> ConcurrentHashMap.newKeySet());
+
 		for (var chunkKey : chunkKeys) {
-			var chunkPos = new ChunkPos(chunkKey);
-			try {
-				DhApi.events.fireAllEvents(DhApiChunkModifiedEvent.class,
-						new DhApiChunkModifiedEvent.EventParam(levelWrapper, chunkPos.x, chunkPos.z));
-			} catch (Exception ignored) {
-				// DH may not be ready to process the notification; ignore.
-			}
+			dirtyRegions.add(ContraptionRegionCodec.regionKey(chunkKey));
 		}
 	}
 
+	private static void notifyChunksDirty(String dimensionId, Iterable<Long> chunkKeys) {
+		DhDirtyChunkQueue.enqueue(dimensionId, chunkKeys);
+	}
+
+	/**
+	 * Records a change to stored blocks for both DH rebuilding and region persistence.
+	 */
+	private static void notifyChunksChanged(String dimensionId, Iterable<Long> chunkKeys) {
+		markRegionsDirty(dimensionId, chunkKeys);
+		notifyChunksDirty(dimensionId, chunkKeys);
+	}
+
 	// Utility
 
 	private static boolean registerWindmillEntry(ServerLevel serverLevel, String dimensionIdentifier, UUID id, Contraption contraption,
@@ -376,31 +422,36 @@ public final class ContraptionBlockRegistry {
 			return windmillRemoved;
 		}
 
+		ContraptionTaskQueue.submit("unregister " + contraptionId, () -> removeStoredBlocksForContraption(removed));
+
+		return windmillRemoved;
+	}
+
+	private static void removeStoredBlocksForContraption(ContraptionEntry removed) {
 		var chunkMap = BY_DIMENSION.get(removed.dimensionId);
 
-		if (chunkMap == null) {
-			return windmillRemoved;
+		if (chunkMap == null || removed.chunks.isEmpty()) {
+			return;
 		}
 
 		for (var chunkEntry : removed.chunks.entrySet()) {
-			var combinedList = chunkMap.get(chunkEntry.getKey());
-
-			if (combinedList == null) {
-				continue;
-			}
+			var chunkBlocks = chunkEntry.getValue();
 
-			combinedList.removeAll(chunkEntry.getValue());
-
-			if (combinedList.isEmpty()) {
-				chunkMap.remove(chunkEntry.getKey(), combinedList);
-			}
+			chunkMap.computeIfPresent(chunkEntry.getKey(), (key, existing) -> {
+				var updated = existing.withRemoved(chunkBlocks.positions(), chunkBlocks.paletteIds());
+				return updated.isEmpty() ? null : updated;
+			});
 		}
 
-		notifyChunksDirty(removed.dimensionId, removed.chunks.keySet());
-		return windmillRemoved;
+		notifyChunksChanged(removed.dimensionId, removed.chunks.keySet());
 	}
 
 	private static void removeStoredBlocksForWindmill(String dimensionId, BlockPos anchorPosition, AABB bounds) {
+		ContraptionTaskQueue.submit("remove windmill blocks " + anchorPosition.toShortString(),
+				() -> removeStoredBlocksInBounds(dimensionId, anchorPosition, bounds));
+	}
+
+	private static void removeStoredBlocksInBounds(String dimensionId, BlockPos anchorPosition, AABB bounds) {
 		var chunkMap = BY_DIMENSION.get(dimensionId);
 
 		if (chunkMap == null) {
@@ -421,25 +472,127 @@ public final class ContraptionBlockRegistry {
 
 		var affectedChunks = new ArrayList<Long>();
 
-		for (var chunkEntry : chunkMap.entrySet()) {
-			var entries = chunkEntry.getValue();
-			var initialSize = entries.size();
+		// Only visit chunks intersecting the windmill bounds instead of every chunk in the dimension.
+		for (var chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+			for (var chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+				var originX = chunkX << 4;
+				var originZ = chunkZ << 4;
 
-			entries.removeIf(entry -> entry.x >= minX && entry.x <= maxX && entry.y >= minY && entry.y <= maxY && entry.z >= minZ
-					&& entry.z <= maxZ);
+				chunkMap.computeIfPresent(ChunkPos.asLong(chunkX, chunkZ), (key, existing) -> {
+					var updated = existing.withRemovedMatching((localX, worldY, localZ, paletteId) -> {
+						var worldX = originX + localX;
+						var worldZ = originZ + localZ;
 
-			if (entries.isEmpty()) {
-				chunkMap.remove(chunkEntry.getKey(), entries);
-			}
+						return worldX >= minX && worldX <= maxX && worldY >= minY && worldY <= maxY && worldZ >= minZ && worldZ <= maxZ;
+					});
+
+					if (updated != existing) {
+						affectedChunks.add(key);
+					}
 
-			if (entries.size() != initialSize) {
-				affectedChunks.add(chunkEntry.getKey());
+					return updated.isEmpty() ? null : updated;
+				});
 			}
 		}
 
 		if (!affectedChunks.isEmpty()) {
-			notifyChunksDirty(dimensionId, affectedChunks);
+			notifyChunksChanged(dimensionId, affectedChunks);
+		}
+	}
+
+	// Indexing
+
+	private static RegistrationSnapshot captureRegistrationSnapshot(ServerLevel serverLevel, UUID contraptionId, String dimensionId,
+			Contraption contraption, BlockPos anchorPosition) {
+		var blocks = contraption.getBlocks();
+		var worldPositions = new long[blocks.size()];
+		var states = new BlockState[blocks.size()];
+		var chunks = new Long2ObjectOpenHashMap<LevelChunk>();
+		var chunkSource = serverLevel.getChunkSource();
+		var index = 0;
+
+		for (var blockEntry : blocks.entrySet()) {
+			var localPosition = blockEntry.getKey();
+			var worldX = localPosition.getX() + anchorPosition.getX();
+			var worldY = localPosition.getY() + anchorPosition.getY();
+			var worldZ = localPosition.getZ() + anchorPosition.getZ();
+			var chunkKey = ChunkPos.asLong(worldX >> 4, worldZ >> 4);
+
+			if (!chunks.containsKey(chunkKey)) {
+				chunks.put(chunkKey, chunkSource.getChunkNow(worldX >> 4, worldZ >> 4));
+			}
+
+			worldPositions[index] = BlockPos.asLong(worldX, worldY, worldZ);
+			states[index] = blockEntry.getValue().state();
+			index++;
+		}
+
+		return new RegistrationSnapshot(contraptionId, dimensionId, worldPositions, states, chunks);
+	}
+
+	private static void indexRegistrationSnapshot(RegistrationSnapshot snapshot, ContraptionEntry entry) {
+		var chunkPositions = new Long2ObjectOpenHashMap<LongArrayList>();
+		var chunkPaletteIds = new Long2ObjectOpenHashMap<IntArrayList>();
+		var worldPositions = snapshot.worldPositions();
+
+		for (var index = 0; index < worldPositions.length; index++) {
+			var worldX = BlockPos.getX(worldPositions[index]);
+			var worldY = BlockPos.getY(worldPositions[index]);
+			var worldZ = BlockPos.getZ(worldPositions[index]);
+			var chunkKey = ChunkPos.asLong(worldX >> 4, worldZ >> 4);
+
+			var biomeIdentifier = resolveBiomeId(snapshot.chunks().get(chunkKey), worldX, worldY, worldZ);
+			var paletteId = PALETTE.getId(snapshot.states()[index], biomeIdentifier);
+			var packedPosition = ContraptionChunkIndex.packLocalPosition(worldX, worldY, worldZ);
+
+			var positions = chunkPositions.get(chunkKey);
+			var paletteIds = chunkPaletteIds.get(chunkKey);
+
+			if (positions == null) {
+				positions = new LongArrayList();
+				paletteIds = new IntArrayList();
+				chunkPositions.put(chunkKey, positions);
+				chunkPaletteIds.put(chunkKey, paletteIds);
+			}
+
+			positions.add(packedPosition);
+			paletteIds.add(paletteId);
+		}
+
+		var chunks = new HashMap<Long, ChunkBlocks>(chunkPositions.size());
+
+		for (var chunkEntry : chunkPositions.long2ObjectEntrySet()) {
+			var chunkKey = chunkEntry.getLongKey();
+			chunks.put(chunkKey, new ChunkBlocks(chunkEntry.getValue().toLongArray(), chunkPaletteIds.get(chunkKey).toIntArray()));
+		}
+
+		// Contraption was unregistered or replaced while queued. Its chunks are never published, so they must not
+		// be handed to its removal task either, which would strip matching blocks of other sources.
+		if (CONTRAPTIONS.get(snapshot.contraptionId()) != entry) {
+			Mod.LOGGER.debug("Skipped indexing contraption '{}', it was unregistered while queued.", snapshot.contraptionId());
+			return;
+		}
+
+		entry.chunks = chunks;
+
+		var dimensionChunkMap = BY_DIMENSION.computeIfAbsent(snapshot.dimensionId(), key -> new ConcurrentHashMap<>());
+
+		for (var chunkEntry : chunks.entrySet()) {
+			var chunkBlocks = chunkEntry.getValue();
+
+			dimensionChunkMap.compute(chunkEntry.getKey(), (key, existing) -> {
+				if (existing == null) {
+					return ContraptionChunkIndex.create(PALETTE, chunkBlocks.positions(), chunkBlocks.paletteIds());
+				}
+
+				return existing.withAdded(chunkBlocks.positions(), chunkBlocks.paletteIds());
+			});
 		}
+
+		notifyChunksChanged(snapshot.dimensionId(), chunks.keySet());
+
+		Mod.LOGGER.debug("Indexed {} blocks for contraption '{}' in '{}'.", worldPositions.length, snapshot.contraptionId(),
+				snapshot.dimensionId());
 	}
 
 	private static AABB getWorldBoundsForAnchor(BlockPos anchorPosition, AABB bounds) {
@@ -509,53 +662,26 @@ public final class ContraptionBlockRegistry {
 	}
 
 	@Nullable
-	private static Map<Long, List<BlockPosState>> resolveChunkMap(String dimensionId) {
+	private static Map<Long, ContraptionChunkIndex> resolveChunkMap(String dimensionId) {
 		var chunkMap = BY_DIMENSION.get(dimensionId);
+
 		if (chunkMap != null) {
 			return chunkMap;
 		}
-		// Fallback: try dimension name suffix match (e.g., "minecraft:overworld" vs "overworld")
-		for (var entry : BY_DIMENSION.entrySet()) {
-			if (entry.getKey().endsWith(dimensionId) || dimensionId.endsWith(entry.getKey())) {
-				return entry.getValue();
-			}
-		}
 
-		return null;
+		return BY_DIMENSION.get(DhDimensionResolver.canonicalDimensionId(dimensionId));
 	}
 
-	private static String resolveBiomeId(ServerLevel level, BlockPos pos) {
-		if (pos == null) {
-			return "minecraft:plains";
+	/**
+	 * Reads the biome directly from the captured chunk's biome storage, safe to call off the server thread.
+	 */
+	private static String resolveBiomeId(@Nullable LevelChunk chunk, int worldX, int worldY, int worldZ) {
+		if (chunk == null) {
+			return DEFAULT_BIOME_ID;
 		}
 
-		Holder<Biome> biome = level.getBiome(pos);
-
-		return biome.unwrapKey().map(key -> key.location().toString()).orElse("minecraft:plains");
-	}
-
-	@Nullable
-	private static IDhApiLevelWrapper resolveLevelWrapper(String dimensionId) {
-		var worldProxy = DhBridge.worldProxy();
-
-		if (worldProxy == null) {
-			return null;
-		}
-
-		try {
-			for (var wrapper : worldProxy.getAllLoadedLevelWrappers()) {
-				if (dimensionId.equals(wrapper.getDhIdentifier()) || dimensionId.endsWith(wrapper.getDimensionName())) {
-					return wrapper;
-				}
-			}
-		} catch (Exception ignored) {
-			return null;
-		}
-
-		return null;
-	}
+		Holder<Biome> biome = chunk.getNoiseBiome(QuartPos.fromBlock(worldX), QuartPos.fromBlock(worldY), QuartPos.fromBlock(worldZ));
 
-	private static List<BlockPosState> createSharedChunkList() {
-		return new CopyOnWriteArrayList<>();
+		return biome.unwrapKey().map(PALETTE::getBiomeId).orElse(DEFAULT_BIOME_ID);
 	}
 }
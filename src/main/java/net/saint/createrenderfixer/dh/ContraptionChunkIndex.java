@@ -0,0 +1,212 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.Arrays;
+
+import org.jetbrains.annotations.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+/**
+ * Immutable snapshot of all contraption blocks stored in one chunk.
+ *
+ * Blocks are kept in registration order as packed chunk-local x/z and world y with their palette id, plus a
+ * position lookup and the highest contraption block per column for heightmap overrides. Changes produce a new
+ * snapshot that is published atomically, readers never observe a partially applied batch.
+ */
+public final class ContraptionChunkIndex {
+
+	// Configuration
+
+	public static final int NO_HEIGHT = Integer.MIN_VALUE;
+
+	private static final int COLUMN_COUNT = 16 * 16;
+
+	// Library
+
+	@FunctionalInterface
+	public interface BlockConsumer {
+		void accept(int localX, int worldY, int localZ, int paletteId);
+	}
+
+	@FunctionalInterface
+	public interface BlockPredicate {
+		boolean test(int localX, int worldY, int localZ, int paletteId);
+	}
+
+	// State
+
+	private final ContraptionBlockPalette palette;
+	private final long[] positions;
+	private final int[] paletteIds;
+	private final Long2IntOpenHashMap blocks;
+	private final int[] columnHeights;
+
+	// Init
+
+	private ContraptionChunkIndex(ContraptionBlockPalette palette, long[] positions, int[] paletteIds) {
+		this.palette = palette;
+		this.positions = positions;
+		this.paletteIds = paletteIds;
+		this.blocks = new Long2IntOpenHashMap(positions.length);
+		this.blocks.defaultReturnValue(ContraptionBlockPalette.NO_ENTRY);
+		this.columnHeights = new int[COLUMN_COUNT];
+
+		Arrays.fill(columnHeights, NO_HEIGHT);
+
+		for (var index = 0; index < positions.length; index++) {
+			var position = positions[index];
+
+			// First registered block wins for overlapping positions.
+			blocks.putIfAbsent(position, paletteIds[index]);
+
+			var columnIndex = (int) (position & 0xFF);
+			var worldY = unpackWorldY(position);
+
+			if (worldY > columnHeights[columnIndex]) {
+				columnHeights[columnIndex] = worldY;
+			}
+		}
+	}
+
+	public static ContraptionChunkIndex create(ContraptionBlockPalette palette, long[] positions, int[] paletteIds) {
+		return new ContraptionChunkIndex(palette, positions.clone(), paletteIds.clone());
+	}
+
+	// Access
+
+	@Nullable
+	public ContraptionBlockRegistry.LookupResult find(int localX, int worldY, int localZ) {
+		var paletteId = blocks.get(packLocalPosition(localX, worldY, localZ));
+
+		if (paletteId == ContraptionBlockPalette.NO_ENTRY) {
+			return null;
+		}
+
+		return palette.get(paletteId);
+	}
+
+	/**
+	 * Returns the highest contraption block y in the given local column or `NO_HEIGHT` if the column is empty.
+	 */
+	public int highestY(int localX, int localZ) {
+		return columnHeights[columnIndex(localX, localZ)];
+	}
+
+	public boolean isEmpty() {
+		return positions.length == 0;
+	}
+
+	public int size() {
+		return positions.length;
+	}
+
+	public void forEach(BlockConsumer consumer) {
+		for (var index = 0; index < positions.length; index++) {
+			var position = positions[index];
+			consumer.accept(unpackLocalX(position), unpackWorldY(position), unpackLocalZ(position), paletteIds[index]);
+		}
+	}
+
+	// Mutation
+
+	/**
+	 * Returns a new snapshot with the given blocks appended after the existing ones.
+	 */
+	public ContraptionChunkIndex withAdded(long[] addedPositions, int[] addedPaletteIds) {
+		if (addedPositions.length == 0) {
+			return this;
+		}
+
+		var combinedPositions = Arrays.copyOf(positions, positions.length + addedPositions.length);
+		var combinedPaletteIds = Arrays.copyOf(paletteIds, paletteIds.length + addedPaletteIds.length);
+
+		System.arraycopy(addedPositions, 0, combinedPositions, positions.length, addedPositions.length);
+		System.arraycopy(addedPaletteIds, 0, combinedPaletteIds, paletteIds.length, addedPaletteIds.length);
+
+		return new ContraptionChunkIndex(palette, combinedPositions, combinedPaletteIds);
+	}
+
+	/**
+	 * Returns a new snapshot with the blocks of the other snapshot appended after the existing ones.
+	 */
+	public ContraptionChunkIndex withAdded(ContraptionChunkIndex other) {
+		return withAdded(other.positions, other.paletteIds);
+	}
+
+	/**
+	 * Returns a new snapshot without one occurrence of each given block (matched by position and palette id).
+	 */
+	public ContraptionChunkIndex withRemoved(long[] removedPositions, int[] removedPaletteIds) {
+		if (removedPositions.length == 0 || positions.length == 0) {
+			return this;
+		}
+
+		var pendingRemovals = new Long2IntOpenHashMap(removedPositions.length);
+		pendingRemovals.defaultReturnValue(ContraptionBlockPalette.NO_ENTRY);
+
+		for (var index = 0; index < removedPositions.length; index++) {
+			pendingRemovals.put(removedPositions[index], removedPaletteIds[index]);
+		}
+
+		return withRemovedMatching((localX, worldY, localZ, paletteId) -> {
+			var position = packLocalPosition(localX, worldY, localZ);
+
+			if (pendingRemovals.get(position) != paletteId) {
+				return false;
+			}
+
+			pendingRemovals.remove(position);
+			return true;
+		});
+	}
+
+	/**
+	 * Returns a new snapshot without all blocks matching the predicate or this instance if none match.
+	 */
+	public ContraptionChunkIndex withRemovedMatching(BlockPredicate predicate) {
+		var keptPositions = new long[positions.length];
+		var keptPaletteIds = new int[paletteIds.length];
+		var keptCount = 0;
+
+		for (var index = 0; index < positions.length; index++) {
+			var position = positions[index];
+			var paletteId = paletteIds[index];
+
+			if (predicate.test(unpackLocalX(position), unpackWorldY(position), unpackLocalZ(position), paletteId)) {
+				continue;
+			}
+
+			keptPositions[keptCount] = position;
+			keptPaletteIds[keptCount] = paletteId;
+			keptCount++;
+		}
+
+		if (keptCount == positions.length) {
+			return this;
+		}
+
+		return new ContraptionChunkIndex(palette, Arrays.copyOf(keptPositions, keptCount), Arrays.copyOf(keptPaletteIds, keptCount));
+	}
+
+	// Packing
+
+	public static long packLocalPosition(int localX, int worldY, int localZ) {
+		return ((long) worldY << 8) | ((localZ & 15) << 4) | (localX & 15);
+	}
+
+	public static int unpackLocalX(long position) {
+		return (int) (position & 15);
+	}
+
+	public static int unpackLocalZ(long position) {
+		return (int) ((position >> 4) & 15);
+	}
+
+	public static int unpackWorldY(long position) {
+		return (int) (position >> 8);
+	}
+
+	private static int columnIndex(int localX, int localZ) {
+		return ((localZ & 15) << 4) | (localX & 15);
+	}
+}
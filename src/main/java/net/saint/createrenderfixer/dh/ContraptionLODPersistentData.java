@@ -2,6 +2,7 @@ package net.saint.createrenderfixer.dh;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,7 +19,6 @@ import net.minecraft.nbt.Tag;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.saveddata.SavedData;
-import net.saint.createrenderfixer.Mod;
 
 public final class ContraptionLODPersistentData extends SavedData {
 
@@ -28,7 +28,8 @@ public final class ContraptionLODPersistentData extends SavedData {
 
 	// State
 
-	private Map<String, Map<Long, List<ContraptionBlockRegistry.StoredBlock>>> chunkData = new HashMap<>();
+	// Dimensions in the legacy NBT layout, kept as read until migrated to region storage and written back as is.
+	private Map<String, CompoundTag> legacyDimensionTags = new LinkedHashMap<>();
 
 	private List<WindmillLODEntry> windmills = new ArrayList<>();
 
@@ -37,9 +38,8 @@ public final class ContraptionLODPersistentData extends SavedData {
 	public ContraptionLODPersistentData() {
 	}
 
-	private ContraptionLODPersistentData(Map<String, Map<Long, List<ContraptionBlockRegistry.StoredBlock>>> chunkData,
-			List<WindmillLODEntry> windmills) {
-		this.chunkData = chunkData;
+	private ContraptionLODPersistentData(Map<String, CompoundTag> legacyDimensionTags, List<WindmillLODEntry> windmills) {
+		this.legacyDimensionTags = legacyDimensionTags;
 		this.windmills = windmills;
 	}
 
@@ -53,200 +53,144 @@ public final class ContraptionLODPersistentData extends SavedData {
 	}
 
 	public static ContraptionLODPersistentData fromNbt(CompoundTag root) {
-		var blocks = BuiltInRegistries.BLOCK.asLookup();
-		var data = decode(blocks, root);
-
-		return new ContraptionLODPersistentData(data.chunkData(), data.windmills());
+		return new ContraptionLODPersistentData(readLegacyDimensionTags(root), decodeWindmills(root));
 	}
 
 	// Persistence
 
 	@Override
-	public CompoundTag save(@Nonnull CompoundTag compoundTag) {
-		encode(compoundTag, chunkData, windmills);
+	public synchronized CompoundTag save(@Nonnull CompoundTag compoundTag) {
+		// Legacy blocks are only read for migration, dimensions not yet migrated are written back unchanged.
+		if (!legacyDimensionTags.isEmpty()) {
+			var dimensions = new ListTag();
+			dimensions.addAll(legacyDimensionTags.values());
+			compoundTag.put("dims", dimensions);
+		}
+
+		compoundTag.put("windmills", WindmillLODEntry.toNbtList(windmills));
 		return compoundTag;
 	}
 
-	public void applyToRegistries() {
-		ContraptionBlockRegistry.loadPersistent(chunkData);
-		Mod.WINDMILL_LOD_MANAGER.loadPersistent(windmills);
+	/**
+	 * Returns windmill entries stored in the saved data before they moved to their own file. The entries are
+	 * kept until `clearLegacyWindmills` confirms they were migrated.
+	 */
+	public synchronized List<WindmillLODEntry> getLegacyWindmills() {
+		return List.copyOf(windmills);
 	}
 
-	public void captureFromRegistries() {
-		chunkData = ContraptionBlockRegistry.snapshot();
-		windmills = Mod.WINDMILL_LOD_MANAGER.snapshotPersistent();
+	/**
+	 * Drops the legacy windmill entries once the windmill file was written, may be called from the storage
+	 * writer.
+	 */
+	public synchronized void clearLegacyWindmills() {
+		if (windmills.isEmpty()) {
+			return;
+		}
+
+		windmills = new ArrayList<>();
 		setDirty();
 	}
 
-	public boolean hasData() {
-		if (chunkData != null && !chunkData.isEmpty()) {
-			return true;
+	/**
+	 * Decodes and returns the legacy blocks of one dimension, or `null` if there are none. The blocks are
+	 * kept until `clearLegacyChunkData` confirms they were migrated.
+	 */
+	@Nullable
+	public synchronized Map<Long, List<ContraptionBlockRegistry.StoredBlock>> getLegacyChunkData(String dimensionId) {
+		var dimensionTag = legacyDimensionTags.get(dimensionId);
+
+		if (dimensionTag == null) {
+			return null;
 		}
 
-		if (windmills != null && !windmills.isEmpty()) {
-			return true;
+		return decodeLegacyDimension(BuiltInRegistries.BLOCK.asLookup(), dimensionTag);
+	}
+
+	/**
+	 * Drops the legacy blocks of one dimension once every block is stored in a region file, may be called
+	 * from the storage writer. Other dimensions keep their legacy blocks until they are migrated themselves.
+	 */
+	public synchronized void clearLegacyChunkData(String dimensionId) {
+		if (legacyDimensionTags.remove(dimensionId) != null) {
+			setDirty();
 		}
+	}
 
-		return false;
+	public synchronized boolean hasData() {
+		return !legacyDimensionTags.isEmpty() || !windmills.isEmpty();
 	}
 
-	public void replaceWith(ContraptionLODPersistentData other) {
+	public synchronized void replaceWith(ContraptionLODPersistentData other) {
 		if (other == null) {
 			return;
 		}
 
-		chunkData = other.chunkData;
+		legacyDimensionTags = other.legacyDimensionTags;
 		windmills = other.windmills;
 	}
 
-	// Encoding
-
-	private static void encode(CompoundTag root, Map<String, Map<Long, List<ContraptionBlockRegistry.StoredBlock>>> data,
-			List<WindmillLODEntry> windmills) {
-		var dimensions = new ListTag();
-
-		if (data != null) {
-			data.forEach((dimensionId, chunkMap) -> {
-				var dimensionTag = new CompoundTag();
-				dimensionTag.putString("id", dimensionId);
-
-				var chunks = new ListTag();
-				chunkMap.forEach((chunkKey, blocks) -> {
-					var chunkTag = new CompoundTag();
-					chunkTag.putLong("key", chunkKey);
-
-					var list = new ListTag();
-					for (var block : blocks) {
-						var blockTag = new CompoundTag();
-						blockTag.putInt("x", block.x());
-						blockTag.putInt("y", block.y());
-						blockTag.putInt("z", block.z());
-						blockTag.put("state", NbtUtils.writeBlockState(block.state()));
-
-						if (block.biomeId() != null) {
-							blockTag.putString("biome", block.biomeId());
-						}
-
-						list.add(blockTag);
-					}
-
-					chunkTag.put("blocks", list);
-					chunks.add(chunkTag);
-				});
-
-				dimensionTag.put("chunks", chunks);
-				dimensions.add(dimensionTag);
-			});
-		}
-
-		root.put("dims", dimensions);
-		root.put("windmills", encodeWindmills(windmills));
-	}
+	// Decoding
 
-	private static ListTag encodeWindmills(List<WindmillLODEntry> windmills) {
-		var list = new ListTag();
+	private static Map<String, CompoundTag> readLegacyDimensionTags(@Nullable CompoundTag root) {
+		var dimensionTags = new LinkedHashMap<String, CompoundTag>();
 
-		if (windmills == null || windmills.isEmpty()) {
-			return list;
+		if (root == null || !root.contains("dims", Tag.TAG_LIST)) {
+			return dimensionTags;
 		}
 
-		for (var entry : windmills) {
-			if (entry == null) {
-				continue;
-			}
-
-			var windmillTag = entry.toNbt();
-
-			if (windmillTag == null) {
-				continue;
+		for (Tag dimTagRaw : root.getList("dims", Tag.TAG_COMPOUND)) {
+			if (dimTagRaw instanceof CompoundTag dimTag) {
+				dimensionTags.put(dimTag.getString("id"), dimTag);
 			}
-
-			list.add(windmillTag);
 		}
 
-		return list;
+		return dimensionTags;
 	}
 
-	// Decoding
-
-	private static PersistedData decode(HolderGetter<Block> blocks, @Nullable CompoundTag root) {
-		var data = new HashMap<String, Map<Long, List<ContraptionBlockRegistry.StoredBlock>>>();
-		var windmills = decodeWindmills(root);
-
-		if (root == null || !root.contains("dims", Tag.TAG_LIST)) {
-			return new PersistedData(data, windmills);
-		}
+	/**
+	 * Reads one dimension of the legacy layout with one compound per block, kept to migrate existing worlds.
+	 */
+	@Nullable
+	private static Map<Long, List<ContraptionBlockRegistry.StoredBlock>> decodeLegacyDimension(HolderGetter<Block> blocks,
+			CompoundTag dimTag) {
+		var chunkMap = new HashMap<Long, List<ContraptionBlockRegistry.StoredBlock>>();
 
-		for (Tag dimTagRaw : root.getList("dims", Tag.TAG_COMPOUND)) {
-			if (!(dimTagRaw instanceof CompoundTag dimTag)) {
+		for (var chunkRaw : dimTag.getList("chunks", Tag.TAG_COMPOUND)) {
+			if (!(chunkRaw instanceof CompoundTag chunkTag)) {
 				continue;
 			}
 
-			var id = dimTag.getString("id");
-			var chunkMap = new HashMap<Long, List<ContraptionBlockRegistry.StoredBlock>>();
+			var key = chunkTag.getLong("key");
+			var list = new ArrayList<ContraptionBlockRegistry.StoredBlock>();
 
-			for (var chunkRaw : dimTag.getList("chunks", Tag.TAG_COMPOUND)) {
-				if (!(chunkRaw instanceof CompoundTag chunkTag)) {
+			for (var blockRaw : chunkTag.getList("blocks", Tag.TAG_COMPOUND)) {
+				if (!(blockRaw instanceof CompoundTag blockTag)) {
 					continue;
 				}
 
-				var key = chunkTag.getLong("key");
-				var list = new ArrayList<ContraptionBlockRegistry.StoredBlock>();
-
-				for (var blockRaw : chunkTag.getList("blocks", Tag.TAG_COMPOUND)) {
-					if (!(blockRaw instanceof CompoundTag blockTag)) {
-						continue;
-					}
-
-					var state = NbtUtils.readBlockState(blocks, blockTag.getCompound("state"));
-					var x = blockTag.getInt("x");
-					var y = blockTag.getInt("y");
-					var z = blockTag.getInt("z");
-					var biomeId = blockTag.getString("biome");
+				var state = NbtUtils.readBlockState(blocks, blockTag.getCompound("state"));
+				var x = blockTag.getInt("x");
+				var y = blockTag.getInt("y");
+				var z = blockTag.getInt("z");
+				var biomeId = blockTag.getString("biome");
 
-					list.add(new ContraptionBlockRegistry.StoredBlock(x, y, z, state, biomeId));
-				}
-
-				if (!list.isEmpty()) {
-					chunkMap.put(key, list);
-				}
+				list.add(new ContraptionBlockRegistry.StoredBlock(x, y, z, state, biomeId));
 			}
 
-			if (!chunkMap.isEmpty()) {
-				data.put(id, chunkMap);
+			if (!list.isEmpty()) {
+				chunkMap.put(key, list);
 			}
 		}
 
-		return new PersistedData(data, windmills);
+		return chunkMap.isEmpty() ? null : chunkMap;
 	}
 
 	private static List<WindmillLODEntry> decodeWindmills(@Nullable CompoundTag root) {
-		var entries = new ArrayList<WindmillLODEntry>();
-
 		if (root == null || !root.contains("windmills", Tag.TAG_LIST)) {
-			return entries;
+			return new ArrayList<>();
 		}
 
-		for (Tag entryRaw : root.getList("windmills", Tag.TAG_COMPOUND)) {
-			if (!(entryRaw instanceof CompoundTag entryTag)) {
-				continue;
-			}
-
-			var entry = WindmillLODEntry.fromNbt(entryTag);
-
-			if (entry == null) {
-				continue;
-			}
-
-			entries.add(entry);
-		}
-
-		return entries;
-	}
-
-	// Utility
-
-	private record PersistedData(Map<String, Map<Long, List<ContraptionBlockRegistry.StoredBlock>>> chunkData,
-			List<WindmillLODEntry> windmills) {
+		return WindmillLODEntry.fromNbtList(root.getList("windmills", Tag.TAG_COMPOUND));
 	}
 }
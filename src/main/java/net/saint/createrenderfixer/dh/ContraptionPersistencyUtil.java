@@ -1,24 +1,229 @@
 package net.saint.createrenderfixer.dh;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.ChunkPos;
+import net.saint.createrenderfixer.Mod;
 
 /**
  * Loads and stores contraption block snapshots so DH overrides survive restarts.
+ *
+ * Contraption blocks are kept in binary region files and loaded per dimension when its level loads,
+ * windmills in their own file. Data from the legacy `create-lod` saved data is migrated on load for
+ * regions without a region file and written to the new files on the next save; it is only dropped from
+ * the saved data, per dimension, once the writer has confirmed those files. Only regions changed since
+ * the last save are written, periodically and whenever the server saves the world.
  */
 public final class ContraptionPersistencyUtil {
 
+	// Configuration
+
+	private static final long FLUSH_TIMEOUT_MILLISECONDS = 30_000L;
+
+	// Library
+
+	/**
+	 * Legacy blocks of one dimension merged into the registry, with the regions not yet confirmed written.
+	 */
+	private record LegacyMigration(MinecraftServer server, ContraptionLODPersistentData state, Set<Long> pendingRegionKeys) {
+	}
+
+	// State
+
+	private static final Map<String, LegacyMigration> LEGACY_MIGRATIONS = new ConcurrentHashMap<>();
+
+	// Saved data still holding legacy windmills, cleared once the windmill file was written.
+	private static volatile ContraptionLODPersistentData legacyWindmillState;
+
 	// Load
 
+	/**
+	 * Drops migration state of a previously opened world, called before a server loads its levels.
+	 */
+	public static void reset(MinecraftServer server) {
+		LEGACY_MIGRATIONS.clear();
+		legacyWindmillState = null;
+	}
+
 	public static void load(MinecraftServer server) {
 		var state = ContraptionLODPersistentData.loadFromServer(server);
-		state.applyToRegistries();
+		var windmills = WindmillLODStorage.read(server);
+
+		if (windmills != null) {
+			// Windmill file exists, so legacy windmills were already migrated by an earlier save.
+			state.clearLegacyWindmills();
+			legacyWindmillState = null;
+		} else {
+			windmills = state.getLegacyWindmills();
+			legacyWindmillState = windmills.isEmpty() ? null : state;
+		}
+
+		Mod.WINDMILL_LOD_MANAGER.loadPersistent(windmills);
+	}
+
+	/**
+	 * Streams the stored blocks of a dimension into the registry on the registry worker, called when the
+	 * level loads. Regions are published as they are decoded and DH is notified through the throttled
+	 * dirty chunk queue, so server startup does not wait for stored blocks.
+	 *
+	 * Region files always hold the latest state of their region. Legacy blocks are only migrated for regions
+	 * without a readable file and are dropped from the saved data once no region depends on them.
+	 */
+	public static void loadDimension(MinecraftServer server, String dimensionId) {
+		var state = ContraptionLODPersistentData.loadFromServer(server);
+		var palette = ContraptionBlockRegistry.palette();
+
+		ContraptionTaskQueue.submit("load " + dimensionId, () -> {
+			var storedRegionKeys = new HashSet<Long>();
+			var regionCount = ContraptionRegionStorage.readDimension(server, dimensionId, palette, regionData -> {
+				storedRegionKeys.add(ChunkPos.asLong(regionData.regionX(), regionData.regionZ()));
+				ContraptionBlockRegistry.mergePersistentChunks(dimensionId, regionData.chunks(), false);
+			});
+
+			if (regionCount > 0) {
+				Mod.LOGGER.info("Loaded {} contraption region(s) for '{}'.", regionCount, dimensionId);
+			}
+
+			var legacyChunks = state.getLegacyChunkData(dimensionId);
+
+			if (legacyChunks == null) {
+				return;
+			}
+
+			var migratedChunks = new HashMap<Long, List<ContraptionBlockRegistry.StoredBlock>>();
+
+			for (var chunkEntry : legacyChunks.entrySet()) {
+				if (!storedRegionKeys.contains(ContraptionRegionCodec.regionKey(chunkEntry.getKey()))) {
+					migratedChunks.put(chunkEntry.getKey(), chunkEntry.getValue());
+				}
+			}
+
+			if (migratedChunks.isEmpty()) {
+				state.clearLegacyChunkData(dimensionId);
+				Mod.LOGGER.info("Removed contraption blocks for '{}' from legacy saved data, all regions are stored.", dimensionId);
+				return;
+			}
+
+			Mod.LOGGER.info("Migrating {} contraption chunk(s) for '{}' from legacy saved data to region files.", migratedChunks.size(),
+					dimensionId);
+
+			var pendingRegionKeys = ConcurrentHashMap.<Long>newKeySet();
+			pendingRegionKeys.addAll(getRegionKeysForChunks(migratedChunks.keySet()));
+
+			LEGACY_MIGRATIONS.put(dimensionId, new LegacyMigration(server, state, pendingRegionKeys));
+			ContraptionBlockRegistry.mergePersistentChunks(dimensionId, ContraptionBlockRegistry.indexLegacyChunks(migratedChunks), true);
+		});
 	}
 
 	// Save
 
-	public static void save(MinecraftServer server) {
-		var state = ContraptionLODPersistentData.loadFromServer(server);
-		state.captureFromRegistries();
+	public static void tick(MinecraftServer server) {
+		var saveInterval = Mod.CONFIG.contraptionRegionSaveInterval;
+
+		if (saveInterval <= 0 || server.getTickCount() % saveInterval != 0) {
+			return;
+		}
+
+		saveDirtyRegions(server);
+	}
+
+	/**
+	 * Saves changed regions and all windmills, called when the server saves the world. Only the windmill
+	 * snapshot is taken on the calling thread; encoding and writing happen on the storage writer. When the
+	 * save is flushed (shutdown, `/save-all flush`) the call waits for the files to be written.
+	 */
+	public static void save(MinecraftServer server, boolean flush) {
+		if (Mod.WINDMILL_LOD_MANAGER == null) {
+			return;
+		}
+
+		var windmills = Mod.WINDMILL_LOD_MANAGER.snapshotPersistent();
+		var regionsSaved = saveDirtyRegions(server);
+		var windmillsSaved = ContraptionStorageWriter.submit("write windmills", () -> writeWindmills(server, windmills));
+
+		if (flush) {
+			ContraptionStorageWriter.await(CompletableFuture.allOf(regionsSaved, windmillsSaved), FLUSH_TIMEOUT_MILLISECONDS);
+		}
+	}
+
+	private static CompletableFuture<Void> saveDirtyRegions(MinecraftServer server) {
+		// Capture on the registry worker after queued changes, then hand the snapshots to the storage writer.
+		return ContraptionBlockRegistry.captureDirtyRegions()
+				.thenCompose(regions -> ContraptionStorageWriter.submit("write regions", () -> writeRegions(server, regions)));
+	}
+
+	private static void writeWindmills(MinecraftServer server, List<WindmillLODEntry> windmills) {
+		if (!WindmillLODStorage.write(server, windmills)) {
+			return;
+		}
+
+		var state = legacyWindmillState;
+
+		if (state != null) {
+			legacyWindmillState = null;
+			state.clearLegacyWindmills();
+		}
+	}
+
+	private static void writeRegions(MinecraftServer server, Map<String, Map<Long, Map<Long, ContraptionChunkIndex>>> regions) {
+		if (regions.isEmpty()) {
+			return;
+		}
+
+		var failedRegions = ContraptionRegionStorage.writeRegions(server, regions, ContraptionBlockRegistry.palette());
+
+		failedRegions.forEach((dimensionId, regionKeys) -> {
+			for (var regionKey : regionKeys) {
+				ContraptionBlockRegistry.markRegionDirty(dimensionId, regionKey);
+			}
+		});
+
+		confirmLegacyMigrations(server, regions, failedRegions);
+
+		Mod.LOGGER.info("Saved {} changed contraption region(s).", regions.values().stream().mapToInt(Map::size).sum());
+	}
+
+	/**
+	 * Drops legacy blocks of dimensions whose migrated regions have all been written, runs on the storage writer.
+	 */
+	private static void confirmLegacyMigrations(MinecraftServer server, Map<String, Map<Long, Map<Long, ContraptionChunkIndex>>> regions,
+			Map<String, Set<Long>> failedRegions) {
+		for (var dimensionEntry : regions.entrySet()) {
+			var dimensionId = dimensionEntry.getKey();
+			var migration = LEGACY_MIGRATIONS.get(dimensionId);
+
+			if (migration == null || migration.server() != server) {
+				continue;
+			}
+
+			var writtenRegionKeys = new HashSet<>(dimensionEntry.getValue().keySet());
+			writtenRegionKeys.removeAll(failedRegions.getOrDefault(dimensionId, Set.of()));
+			migration.pendingRegionKeys().removeAll(writtenRegionKeys);
+
+			if (migration.pendingRegionKeys().isEmpty() && LEGACY_MIGRATIONS.remove(dimensionId, migration)) {
+				migration.state().clearLegacyChunkData(dimensionId);
+				Mod.LOGGER.info("Migrated contraption blocks for '{}' to region files, removed them from legacy saved data.", dimensionId);
+			}
+		}
+	}
+
+	// Utility
+
+	private static Set<Long> getRegionKeysForChunks(Set<Long> chunkKeys) {
+		var regionKeys = new HashSet<Long>();
+
+		for (var chunkKey : chunkKeys) {
+			regionKeys.add(ContraptionRegionCodec.regionKey(chunkKey));
+		}
+
+		return regionKeys;
 	}
 
 }
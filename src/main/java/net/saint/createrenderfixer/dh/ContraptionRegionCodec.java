@@ -0,0 +1,313 @@
+package net.saint.createrenderfixer.dh;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Binary encoding of the contraption blocks stored in one region of 32x32 chunks.
+ *
+ * Layout: header (magic, version, dimension, region coordinates), a region-local palette of block states
+ * (as NBT), biome ids and state/biome pairs, then per chunk its packed local coordinates as zig-zag varint
+ * deltas and its palette entries as varint runs of (entry, length).
+ */
+public final class ContraptionRegionCodec {
+
+	// Configuration
+
+	public static final int REGION_SHIFT = 5;
+
+	private static final int MAGIC = 0x43524C52;
+	private static final int VERSION = 1;
+
+	private static final int REGION_CHUNK_MASK = (1 << REGION_SHIFT) - 1;
+
+	// Library
+
+	public record RegionData(String dimensionId, int regionX, int regionZ, Map<Long, ContraptionChunkIndex> chunks) {
+	}
+
+	// Encoding
+
+	public static void encode(DataOutput output, String dimensionId, int regionX, int regionZ, Map<Long, ContraptionChunkIndex> chunks,
+			ContraptionBlockPalette palette) throws IOException {
+		var regionEntryIds = new Int2IntOpenHashMap();
+		regionEntryIds.defaultReturnValue(ContraptionBlockPalette.NO_ENTRY);
+
+		var states = new ArrayList<BlockState>();
+		var stateIndices = new IdentityHashMap<BlockState, Integer>();
+		var biomes = new ArrayList<String>();
+		var biomeIndices = new HashMap<String, Integer>();
+		var entryStates = new IntArrayList();
+		var entryBiomes = new IntArrayList();
+
+		var chunkPositions = new HashMap<Long, LongArrayList>(chunks.size());
+		var chunkEntries = new HashMap<Long, IntArrayList>(chunks.size());
+
+		// Collect blocks per chunk and map global palette ids to a compact region-local palette.
+		for (var chunkEntry : chunks.entrySet()) {
+			var chunkIndex = chunkEntry.getValue();
+			var positions = new LongArrayList(chunkIndex.size());
+			var entries = new IntArrayList(chunkIndex.size());
+
+			chunkIndex.forEach((localX, worldY, localZ, paletteId) -> {
+				var regionEntryId = regionEntryIds.get(paletteId);
+
+				if (regionEntryId == ContraptionBlockPalette.NO_ENTRY) {
+					var paletteEntry = palette.get(paletteId);
+
+					if (paletteEntry == null) {
+						return;
+					}
+
+					regionEntryId = entryStates.size();
+					regionEntryIds.put(paletteId, regionEntryId);
+					entryStates.add(indexOf(stateIndices, states, paletteEntry.state()));
+					entryBiomes.add(paletteEntry.biomeId() == null ? 0 : indexOf(biomeIndices, biomes, paletteEntry.biomeId()) + 1);
+				}
+
+				positions.add(ContraptionChunkIndex.packLocalPosition(localX, worldY, localZ));
+				entries.add(regionEntryId);
+			});
+
+			if (!positions.isEmpty()) {
+				chunkPositions.put(chunkEntry.getKey(), positions);
+				chunkEntries.put(chunkEntry.getKey(), entries);
+			}
+		}
+
+		// Header
+
+		output.writeInt(MAGIC);
+		writeVarInt(output, VERSION);
+		output.writeUTF(dimensionId);
+		output.writeInt(regionX);
+		output.writeInt(regionZ);
+
+		// Palette
+
+		writeVarInt(output, states.size());
+
+		for (var state : states) {
+			NbtIo.write(NbtUtils.writeBlockState(state), output);
+		}
+
+		writeVarInt(output, biomes.size());
+
+		for (var biome : biomes) {
+			output.writeUTF(biome);
+		}
+
+		writeVarInt(output, entryStates.size());
+
+		for (var index = 0; index < entryStates.size(); index++) {
+			writeVarInt(output, entryStates.getInt(index));
+			writeVarInt(output, entryBiomes.getInt(index));
+		}
+
+		// Chunks
+
+		writeVarInt(output, chunkPositions.size());
+
+		for (var chunkEntry : chunkPositions.entrySet()) {
+			var chunkKey = chunkEntry.getKey();
+			var positions = chunkEntry.getValue();
+			var entries = chunkEntries.get(chunkKey);
+			var localChunkX = ChunkPos.getX(chunkKey) & REGION_CHUNK_MASK;
+			var localChunkZ = ChunkPos.getZ(chunkKey) & REGION_CHUNK_MASK;
+
+			writeVarInt(output, (localChunkZ << REGION_SHIFT) | localChunkX);
+			writeVarInt(output, positions.size());
+
+			var previousPosition = 0L;
+
+			for (var index = 0; index < positions.size(); index++) {
+				var position = positions.getLong(index);
+				writeVarLong(output, zigZag(position - previousPosition));
+				previousPosition = position;
+			}
+
+			var index = 0;
+
+			while (index < entries.size()) {
+				var entry = entries.getInt(index);
+				var runLength = 1;
+
+				while (index + runLength < entries.size() && entries.getInt(index + runLength) == entry) {
+					runLength++;
+				}
+
+				writeVarInt(output, entry);
+				writeVarInt(output, runLength);
+				index += runLength;
+			}
+		}
+	}
+
+	// Decoding
+
+	public static RegionData decode(DataInput input, ContraptionBlockPalette palette, HolderGetter<Block> blocks) throws IOException {
+		if (input.readInt() != MAGIC) {
+			throw new IOException("Not a contraption region file.");
+		}
+
+		var version = readVarInt(input);
+
+		if (version != VERSION) {
+			throw new IOException("Unsupported contraption region file version " + version + ".");
+		}
+
+		var dimensionId = input.readUTF();
+		var regionX = input.readInt();
+		var regionZ = input.readInt();
+
+		// Palette
+
+		var stateCount = readVarInt(input);
+		var states = new BlockState[stateCount];
+
+		for (var index = 0; index < stateCount; index++) {
+			states[index] = NbtUtils.readBlockState(blocks, NbtIo.read(input));
+		}
+
+		var biomeCount = readVarInt(input);
+		var biomes = new String[biomeCount];
+
+		for (var index = 0; index < biomeCount; index++) {
+			biomes[index] = input.readUTF();
+		}
+
+		var entryCount = readVarInt(input);
+		var paletteIds = new int[entryCount];
+
+		for (var index = 0; index < entryCount; index++) {
+			var state = states[readVarInt(input)];
+			var biomeIndex = readVarInt(input);
+			var biomeId = biomeIndex == 0 ? null : biomes[biomeIndex - 1];
+
+			paletteIds[index] = palette.getId(state, biomeId);
+		}
+
+		// Chunks
+
+		var chunkCount = readVarInt(input);
+		var chunks = new HashMap<Long, ContraptionChunkIndex>(chunkCount);
+
+		for (var chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+			var packedChunk = readVarInt(input);
+			var chunkX = (regionX << REGION_SHIFT) + (packedChunk & REGION_CHUNK_MASK);
+			var chunkZ = (regionZ << REGION_SHIFT) + ((packedChunk >> REGION_SHIFT) & REGION_CHUNK_MASK);
+			var blockCount = readVarInt(input);
+
+			var positions = new long[blockCount];
+			var blockPaletteIds = new int[blockCount];
+			var previousPosition = 0L;
+
+			for (var index = 0; index < blockCount; index++) {
+				previousPosition += unZigZag(readVarLong(input));
+				positions[index] = previousPosition;
+			}
+
+			var index = 0;
+
+			while (index < blockCount) {
+				var paletteId = paletteIds[readVarInt(input)];
+				var runLength = readVarInt(input);
+
+				if (runLength <= 0 || index + runLength > blockCount) {
+					throw new IOException("Invalid block run length " + runLength + " in contraption region file.");
+				}
+
+				for (var runIndex = 0; runIndex < runLength; runIndex++) {
+					blockPaletteIds[index++] = paletteId;
+				}
+			}
+
+			chunks.put(ChunkPos.asLong(chunkX, chunkZ), ContraptionChunkIndex.create(palette, positions, blockPaletteIds));
+		}
+
+		return new RegionData(dimensionId, regionX, regionZ, chunks);
+	}
+
+	// Regions
+
+	public static int regionCoordinate(int chunkCoordinate) {
+		return chunkCoordinate >> REGION_SHIFT;
+	}
+
+	public static long regionKey(long chunkKey) {
+		return ChunkPos.asLong(regionCoordinate(ChunkPos.getX(chunkKey)), regionCoordinate(ChunkPos.getZ(chunkKey)));
+	}
+
+	// Utility
+
+	private static <T> int indexOf(Map<T, Integer> indices, ArrayList<T> values, T value) {
+		var index = indices.get(value);
+
+		if (index != null) {
+			return index;
+		}
+
+		indices.put(value, values.size());
+		values.add(value);
+
+		return values.size() - 1;
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarInt(DataOutput output, int value) throws IOException {
+		writeVarLong(output, value & 0xFFFFFFFFL);
+	}
+
+	private static int readVarInt(DataInput input) throws IOException {
+		return (int) readVarLong(input);
+	}
+
+	private static void writeVarLong(DataOutput output, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			output.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		output.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInput input) throws IOException {
+		var value = 0L;
+		var shift = 0;
+
+		while (shift < 64) {
+			var currentByte = input.readByte();
+			value |= (long) (currentByte & 0x7F) << shift;
+
+			if ((currentByte & 0x80) == 0) {
+				return value;
+			}
+
+			shift += 7;
+		}
+
+		throw new IOException("Malformed varint in contraption region file.");
+	}
+}
@@ -0,0 +1,150 @@
+package net.saint.createrenderfixer.dh;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.storage.LevelResource;
+import net.saint.createrenderfixer.Mod;
+
+/**
+ * Reads and writes contraption blocks as compressed per-region files under
+ * `<world>/data/create-render-fixer/<namespace>/<dimension>/r.<x>.<z>.crl`.
+ */
+public final class ContraptionRegionStorage {
+
+	// Configuration
+
+	private static final String REGION_FILE_EXTENSION = ".crl";
+	private static final Pattern REGION_FILE_PATTERN = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)" + Pattern.quote(REGION_FILE_EXTENSION));
+
+	// Load
+
+	/**
+	 * Reads the stored regions of one dimension and passes each to the consumer as soon as it is decoded.
+	 * Unreadable region files are logged and skipped. Returns the number of region files found.
+	 */
+	public static int readDimension(MinecraftServer server, String dimensionId, ContraptionBlockPalette palette,
+			Consumer<ContraptionRegionCodec.RegionData> consumer) {
+		var dimensionDirectory = getDimensionDirectory(server, dimensionId);
+
+		if (!Files.isDirectory(dimensionDirectory)) {
+			return 0;
+		}
+
+		var regionFiles = new ArrayList<Path>();
+
+		try (var paths = Files.list(dimensionDirectory)) {
+			paths.filter(path -> REGION_FILE_PATTERN.matcher(path.getFileName().toString()).matches()).forEach(regionFiles::add);
+		} catch (IOException exception) {
+			Mod.LOGGER.error("Could not list contraption region files in '{}'.", dimensionDirectory, exception);
+			return 0;
+		}
+
+		for (var regionFile : regionFiles) {
+			var regionData = readRegion(regionFile, palette);
+
+			if (regionData != null) {
+				consumer.accept(regionData);
+			}
+		}
+
+		return regionFiles.size();
+	}
+
+	@Nullable
+	private static ContraptionRegionCodec.RegionData readRegion(Path regionFile, ContraptionBlockPalette palette) {
+		try (var input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(regionFile))))) {
+			return ContraptionRegionCodec.decode(input, palette, BuiltInRegistries.BLOCK.asLookup());
+		} catch (IOException | RuntimeException exception) {
+			Mod.LOGGER.error("Could not read contraption region file '{}'.", regionFile, exception);
+			return null;
+		}
+	}
+
+	// Save
+
+	/**
+	 * Writes the given regions per dimension on the calling thread, deleting the files of regions that no
+	 * longer hold blocks. Returns the keys of regions that could not be written, grouped by dimension.
+	 */
+	public static Map<String, Set<Long>> writeRegions(MinecraftServer server, Map<String, Map<Long, Map<Long, ContraptionChunkIndex>>> data,
+			ContraptionBlockPalette palette) {
+		var failedRegions = new HashMap<String, Set<Long>>();
+
+		for (var dimensionEntry : data.entrySet()) {
+			var dimensionId = dimensionEntry.getKey();
+			var dimensionDirectory = getDimensionDirectory(server, dimensionId);
+
+			for (var regionEntry : dimensionEntry.getValue().entrySet()) {
+				var regionKey = regionEntry.getKey();
+
+				var regionX = ChunkPos.getX(regionKey);
+				var regionZ = ChunkPos.getZ(regionKey);
+
+				if (!writeRegion(dimensionDirectory, dimensionId, regionX, regionZ, regionEntry.getValue(), palette)) {
+					failedRegions.computeIfAbsent(dimensionId, key -> new HashSet<>()).add(regionKey);
+				}
+			}
+		}
+
+		return failedRegions;
+	}
+
+	private static boolean writeRegion(Path dimensionDirectory, String dimensionId, int regionX, int regionZ,
+			Map<Long, ContraptionChunkIndex> chunks, ContraptionBlockPalette palette) {
+		var regionFile = dimensionDirectory.resolve(getRegionFileName(regionX, regionZ));
+
+		try {
+			if (chunks.isEmpty()) {
+				Files.deleteIfExists(regionFile);
+				return true;
+			}
+
+			ContraptionStorageWriter.writeCompressedAtomically(regionFile,
+					output -> ContraptionRegionCodec.encode(output, dimensionId, regionX, regionZ, chunks, palette));
+
+			return true;
+		} catch (IOException exception) {
+			Mod.LOGGER.error("Could not write contraption region file '{}'.", regionFile, exception);
+			return false;
+		}
+	}
+
+	// Utility
+
+	static Path getRootDirectory(MinecraftServer server) {
+		return server.getWorldPath(LevelResource.ROOT).resolve("data").resolve(Mod.MOD_ID);
+	}
+
+	private static Path getDimensionDirectory(MinecraftServer server, String dimensionId) {
+		var location = ResourceLocation.tryParse(dimensionId);
+		var rootDirectory = getRootDirectory(server);
+
+		if (location == null) {
+			return rootDirectory.resolve(dimensionId.replaceAll("[^a-z0-9_.-]", "_"));
+		}
+
+		return rootDirectory.resolve(location.getNamespace()).resolve(location.getPath());
+	}
+
+	private static String getRegionFileName(int regionX, int regionZ) {
+		return "r." + regionX + "." + regionZ + REGION_FILE_EXTENSION;
+	}
+}
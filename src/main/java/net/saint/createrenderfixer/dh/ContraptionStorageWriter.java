@@ -0,0 +1,80 @@
+package net.saint.createrenderfixer.dh;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and writes contraption LOD files on a dedicated writer thread.
+ *
+ * Files are written to a temporary sibling, synced and then moved over the target, so a crash mid-write
+ * leaves the previous file intact.
+ */
+public final class ContraptionStorageWriter {
+
+	// Configuration
+
+	private static final String THREAD_NAME = "CRF LOD Writer";
+	private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+	// Library
+
+	@FunctionalInterface
+	public interface DataWriter {
+		void write(DataOutputStream output) throws IOException;
+	}
+
+	// State
+
+	private static final SerialTaskWorker WORKER = new SerialTaskWorker(THREAD_NAME, "contraption LOD files");
+
+	// Submission
+
+	public static CompletableFuture<Void> submit(String taskName, Runnable task) {
+		return WORKER.submit(taskName, task);
+	}
+
+	/**
+	 * Blocks until the given write completes or the timeout elapses, used when the server flushes saves.
+	 */
+	public static boolean await(CompletableFuture<?> future, long timeoutMilliseconds) {
+		return WORKER.await(future, timeoutMilliseconds);
+	}
+
+	// Files
+
+	/**
+	 * Writes a gzip-compressed file through a temporary sibling and atomically replaces the target with it.
+	 */
+	public static void writeCompressedAtomically(Path file, DataWriter writer) throws IOException {
+		Files.createDirectories(file.getParent());
+
+		var temporaryFile = file.resolveSibling(file.getFileName().toString() + TEMPORARY_FILE_SUFFIX);
+
+		try {
+			try (var output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporaryFile))))) {
+				writer.write(output);
+			}
+
+			try (var channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+				channel.force(true);
+			}
+
+			try {
+				Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException exception) {
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+}
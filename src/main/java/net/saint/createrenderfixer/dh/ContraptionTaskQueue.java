@@ -0,0 +1,30 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Applies contraption registry changes on a background worker instead of the server thread.
+ *
+ * Tasks run strictly in submission order, so an unregister submitted after a register always observes
+ * the registered blocks.
+ */
+public final class ContraptionTaskQueue {
+
+	// State
+
+	private static final SerialTaskWorker WORKER = new SerialTaskWorker("CRF Contraption Indexer", "contraption registry");
+
+	// Submission
+
+	public static CompletableFuture<Void> submit(String taskName, Runnable task) {
+		return WORKER.submit(taskName, task);
+	}
+
+	/**
+	 * Runs the supplier on the worker after all previously submitted tasks and completes with its result.
+	 */
+	public static <T> CompletableFuture<T> supply(String taskName, Supplier<T> task) {
+		return WORKER.supply(taskName, task);
+	}
+}
@@ -40,9 +40,7 @@ public final class DhChunkProcessingHandler extends DhApiChunkProcessingEvent {
 			Mod.LOGGER.info("Handling first call to DH chunk processing event.");
 		}
 
-		var wrapperFactory = DhBridge.wrapperFactory();
-
-		if (wrapperFactory == null) {
+		if (DhBridge.wrapperFactory() == null) {
 			return;
 		}
 
@@ -61,12 +59,20 @@ public final class DhChunkProcessingHandler extends DhApiChunkProcessingEvent {
 		}
 
 		try {
-			var stateWrapper = wrapperFactory.getBlockStateWrapper(new Object[] { override.state() }, levelWrapper);
+			var stateWrapper = DhWrapperCache.getBlockStateWrapper(override.state(), levelWrapper);
+
+			if (stateWrapper == null) {
+				return;
+			}
+
 			event.setBlockOverride(stateWrapper);
 
 			if (override.biomeId() != null) {
-				var biomeWrapper = wrapperFactory.getBiomeWrapper(override.biomeId(), levelWrapper);
-				event.setBiomeOverride(biomeWrapper);
+				var biomeWrapper = DhWrapperCache.getBiomeWrapper(override.biomeId(), levelWrapper);
+
+				if (biomeWrapper != null) {
+					event.setBiomeOverride(biomeWrapper);
+				}
 			}
 
 			if (OVERRIDE_TALLY.getAndIncrement() < 20) {
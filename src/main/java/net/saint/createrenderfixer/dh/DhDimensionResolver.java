@@ -0,0 +1,209 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.seibel.distanthorizons.api.DhApi;
+import com.seibel.distanthorizons.api.interfaces.world.IDhApiLevelWrapper;
+import com.seibel.distanthorizons.api.methods.events.abstractEvents.DhApiLevelLoadEvent;
+import com.seibel.distanthorizons.api.methods.events.abstractEvents.DhApiLevelUnloadEvent;
+import com.seibel.distanthorizons.api.methods.events.sharedParameterObjects.DhApiEventParam;
+
+import net.saint.createrenderfixer.Mod;
+
+/**
+ * Maps DH level identifiers to canonical dimension keys (e.g. `minecraft:overworld`) and canonical keys to
+ * loaded DH level wrappers.
+ *
+ * Identifiers are resolved against the known dimensions once and memoized, so hot paths only perform a
+ * single hash lookup. Memoized results are rebuilt whenever a server level or DH level loads or unloads,
+ * level wrappers are read from the DH world proxy in its own order on every rebuild.
+ */
+public final class DhDimensionResolver {
+
+	// State
+
+	private static final Set<String> KNOWN_DIMENSIONS = ConcurrentHashMap.newKeySet();
+
+	private static final Map<String, String> CANONICAL_IDS = new ConcurrentHashMap<>();
+
+	private static volatile Map<String, IDhApiLevelWrapper> levelWrappersByDimension = Map.of();
+
+	// Init
+
+	public static void init() {
+		try {
+			DhApi.events.bind(DhApiLevelLoadEvent.class, new DhApiLevelLoadEvent() {
+				@Override
+				public void onLevelLoad(DhApiEventParam<EventParam> input) {
+					onLevelWrapperLoad(input.value.levelWrapper);
+				}
+			});
+
+			DhApi.events.bind(DhApiLevelUnloadEvent.class, new DhApiLevelUnloadEvent() {
+				@Override
+				public void onLevelUnload(DhApiEventParam<EventParam> input) {
+					onLevelWrapperUnload(input.value.levelWrapper);
+				}
+			});
+		} catch (Throwable throwable) {
+			Mod.LOGGER.info("Could not bind DH level events for dimension resolution.", throwable);
+		}
+	}
+
+	// Access
+
+	/**
+	 * Returns the canonical dimension key for the given DH or vanilla identifier, or the identifier itself
+	 * if it does not correspond to a known dimension.
+	 */
+	public static String canonicalDimensionId(String identifier) {
+		var canonicalId = CANONICAL_IDS.get(identifier);
+
+		if (canonicalId != null) {
+			return canonicalId;
+		}
+
+		return resolveAndMemoizeCanonicalDimensionId(identifier);
+	}
+
+	@Nullable
+	public static IDhApiLevelWrapper levelWrapper(String dimensionId) {
+		var levelWrappers = levelWrappersByDimension;
+		var levelWrapper = levelWrappers.get(dimensionId);
+
+		if (levelWrapper != null) {
+			return levelWrapper;
+		}
+
+		return levelWrappers.get(canonicalDimensionId(dimensionId));
+	}
+
+	// Events
+
+	public static void onDimensionLoad(String dimensionId) {
+		KNOWN_DIMENSIONS.add(dimensionId);
+		rebuild(null);
+	}
+
+	public static void onDimensionUnload(String dimensionId) {
+		KNOWN_DIMENSIONS.remove(dimensionId);
+		rebuild(null);
+	}
+
+	private static void onLevelWrapperLoad(IDhApiLevelWrapper levelWrapper) {
+		rebuild(null);
+	}
+
+	private static void onLevelWrapperUnload(IDhApiLevelWrapper levelWrapper) {
+		// DH may still list the wrapper while its unload event is dispatched.
+		rebuild(levelWrapper);
+	}
+
+	// Utility
+
+	private static synchronized void rebuild(@Nullable IDhApiLevelWrapper unloadingLevelWrapper) {
+		CANONICAL_IDS.clear();
+
+		var levelWrappers = new HashMap<String, IDhApiLevelWrapper>();
+
+		for (var levelWrapper : getLoadedLevelWrappers()) {
+			if (levelWrapper == unloadingLevelWrapper) {
+				continue;
+			}
+
+			try {
+				var dimensionId = resolveWrapperDimensionId(levelWrapper);
+
+				// First wrapper in DH's own order wins, matching the previous lookup order.
+				if (!levelWrappers.containsKey(dimensionId)) {
+					levelWrappers.put(dimensionId, levelWrapper);
+				}
+			} catch (Exception exception) {
+				Mod.LOGGER.warn("Could not resolve dimension for DH level wrapper.", exception);
+			}
+		}
+
+		levelWrappersByDimension = Map.copyOf(levelWrappers);
+
+		Mod.LOGGER.debug("Rebuilt DH dimension resolution for {} known dimension(s) and {} level wrapper(s).", KNOWN_DIMENSIONS.size(),
+				levelWrappers.size());
+	}
+
+	/**
+	 * Resolves under the same lock as `rebuild` so a lookup racing a load or unload can not memoize a
+	 * mapping from the previous set of dimensions after it was cleared.
+	 */
+	private static synchronized String resolveAndMemoizeCanonicalDimensionId(String identifier) {
+		var canonicalId = CANONICAL_IDS.get(identifier);
+
+		if (canonicalId != null) {
+			return canonicalId;
+		}
+
+		canonicalId = resolveCanonicalDimensionId(identifier);
+		CANONICAL_IDS.put(identifier, canonicalId);
+
+		return canonicalId;
+	}
+
+	private static List<IDhApiLevelWrapper> getLoadedLevelWrappers() {
+		var worldProxy = DhBridge.worldProxy();
+		var levelWrappers = new ArrayList<IDhApiLevelWrapper>();
+
+		if (worldProxy == null) {
+			return levelWrappers;
+		}
+
+		try {
+			for (var levelWrapper : worldProxy.getAllLoadedLevelWrappers()) {
+				if (levelWrapper != null) {
+					levelWrappers.add(levelWrapper);
+				}
+			}
+		} catch (Exception exception) {
+			Mod.LOGGER.warn("Could not list loaded DH level wrappers.", exception);
+		}
+
+		return levelWrappers;
+	}
+
+	private static String resolveWrapperDimensionId(IDhApiLevelWrapper levelWrapper) {
+		var dimensionId = canonicalDimensionId(levelWrapper.getDhIdentifier());
+
+		if (KNOWN_DIMENSIONS.contains(dimensionId)) {
+			return dimensionId;
+		}
+
+		var dimensionName = levelWrapper.getDimensionName();
+
+		if (dimensionName == null) {
+			return dimensionId;
+		}
+
+		var canonicalNameId = canonicalDimensionId(dimensionName);
+
+		return KNOWN_DIMENSIONS.contains(canonicalNameId) ? canonicalNameId : dimensionId;
+	}
+
+	private static String resolveCanonicalDimensionId(String identifier) {
+		if (KNOWN_DIMENSIONS.contains(identifier)) {
+			return identifier;
+		}
+
+		// DH identifiers may carry a prefix or omit the namespace (e.g. "minecraft:overworld" vs "overworld").
+		for (var dimensionId : KNOWN_DIMENSIONS) {
+			if (dimensionId.endsWith(identifier) || identifier.endsWith(dimensionId)) {
+				return dimensionId;
+			}
+		}
+
+		return identifier;
+	}
+}
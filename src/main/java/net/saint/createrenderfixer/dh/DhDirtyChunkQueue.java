@@ -0,0 +1,104 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.seibel.distanthorizons.api.DhApi;
+import com.seibel.distanthorizons.api.interfaces.world.IDhApiLevelWrapper;
+import com.seibel.distanthorizons.api.methods.events.abstractEvents.DhApiChunkModifiedEvent;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.ChunkPos;
+import net.saint.createrenderfixer.Mod;
+
+/**
+ * Collects chunks whose contraption blocks changed and notifies DH about them in throttled batches.
+ *
+ * Keys are deduplicated per dimension until flushed, so a burst of registrations touching the same chunk
+ * results in a single DH rebuild for it.
+ */
+public final class DhDirtyChunkQueue {
+
+	// State
+
+	private static final Map<String, Set<Long>> PENDING_CHUNKS = new ConcurrentHashMap<>();
+
+	// Queue
+
+	public static void enqueue(String dimensionId, Iterable<Long> chunkKeys) {
+		if (dimensionId == null || chunkKeys == null) {
+			return;
+		}
+
+		var pendingChunks = PENDING_CHUNKS.computeIfAbsent(dimensionId, key -> ConcurrentHashMap.newKeySet());
+
+		for (var chunkKey : chunkKeys) {
+			pendingChunks.add(chunkKey);
+		}
+	}
+
+	public static void clearForWorld(String dimensionId) {
+		PENDING_CHUNKS.remove(dimensionId);
+	}
+
+	// Ticking
+
+	public static void tick(MinecraftServer server) {
+		var flushInterval = Math.max(1, Mod.CONFIG.contraptionDirtyChunkFlushInterval);
+
+		if (server.getTickCount() % flushInterval != 0) {
+			return;
+		}
+
+		flush(Math.max(1, Mod.CONFIG.contraptionDirtyChunkFlushBudget));
+	}
+
+	private static void flush(int budget) {
+		if (PENDING_CHUNKS.isEmpty() || !DhBridge.isReady()) {
+			return;
+		}
+
+		var remainingBudget = budget;
+
+		for (var dimensionEntry : PENDING_CHUNKS.entrySet()) {
+			if (remainingBudget <= 0) {
+				return;
+			}
+
+			var pendingChunks = dimensionEntry.getValue();
+
+			if (pendingChunks.isEmpty()) {
+				continue;
+			}
+
+			// Keep chunks queued until DH has loaded the level they belong to.
+			var levelWrapper = DhDimensionResolver.levelWrapper(dimensionEntry.getKey());
+
+			if (levelWrapper == null) {
+				continue;
+			}
+
+			var iterator = pendingChunks.iterator();
+
+			while (iterator.hasNext() && remainingBudget > 0) {
+				var chunkKey = iterator.next();
+				iterator.remove();
+				remainingBudget--;
+
+				fireChunkModified(levelWrapper, chunkKey);
+			}
+		}
+	}
+
+	// Utility
+
+	private static void fireChunkModified(IDhApiLevelWrapper levelWrapper, long chunkKey) {
+		try {
+			DhApi.events.fireAllEvents(DhApiChunkModifiedEvent.class,
+					new DhApiChunkModifiedEvent.EventParam(levelWrapper, ChunkPos.getX(chunkKey), ChunkPos.getZ(chunkKey)));
+		} catch (Exception ignored) {
+			// DH may not be ready to process the notification; ignore.
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.seibel.distanthorizons.api.DhApi;
+import com.seibel.distanthorizons.api.interfaces.block.IDhApiBiomeWrapper;
+import com.seibel.distanthorizons.api.interfaces.block.IDhApiBlockStateWrapper;
+import com.seibel.distanthorizons.api.interfaces.world.IDhApiLevelWrapper;
+import com.seibel.distanthorizons.api.methods.events.abstractEvents.DhApiLevelUnloadEvent;
+import com.seibel.distanthorizons.api.methods.events.sharedParameterObjects.DhApiEventParam;
+
+import net.minecraft.world.level.block.state.BlockState;
+import net.saint.createrenderfixer.Mod;
+
+/**
+ * Per-level cache of DH block state and biome wrappers so injected contraption blocks only resolve each
+ * distinct state and biome once. Cleared when DH unloads the level.
+ */
+public final class DhWrapperCache {
+
+	// Library
+
+	private static final class LevelWrappers {
+		// Block states are canonical instances without equals overrides, keys compare by identity.
+		final Map<BlockState, IDhApiBlockStateWrapper> blockStates = new ConcurrentHashMap<>();
+		final Map<String, IDhApiBiomeWrapper> biomes = new ConcurrentHashMap<>();
+	}
+
+	// State
+
+	private static final Map<IDhApiLevelWrapper, LevelWrappers> BY_LEVEL = new ConcurrentHashMap<>();
+
+	// Init
+
+	public static void init() {
+		try {
+			DhApi.events.bind(DhApiLevelUnloadEvent.class, new DhApiLevelUnloadEvent() {
+				@Override
+				public void onLevelUnload(DhApiEventParam<EventParam> input) {
+					clearForLevel(input.value.levelWrapper);
+				}
+			});
+		} catch (Throwable throwable) {
+			Mod.LOGGER.info("Could not bind DH level unload event for wrapper cache.", throwable);
+		}
+	}
+
+	// Access
+
+	@Nullable
+	public static IDhApiBlockStateWrapper getBlockStateWrapper(BlockState state, IDhApiLevelWrapper levelWrapper) {
+		var wrapperFactory = DhBridge.wrapperFactory();
+
+		if (wrapperFactory == null || state == null || levelWrapper == null) {
+			return null;
+		}
+
+		var cache = getLevelWrappers(levelWrapper).blockStates;
+		var wrapper = cache.get(state);
+
+		if (wrapper != null) {
+			return wrapper;
+		}
+
+		wrapper = wrapperFactory.getBlockStateWrapper(new Object[] { state }, levelWrapper);
+
+		if (wrapper != null) {
+			cache.put(state, wrapper);
+		}
+
+		return wrapper;
+	}
+
+	@Nullable
+	public static IDhApiBiomeWrapper getBiomeWrapper(String biomeId, IDhApiLevelWrapper levelWrapper) throws Exception {
+		var wrapperFactory = DhBridge.wrapperFactory();
+
+		if (wrapperFactory == null || biomeId == null || levelWrapper == null) {
+			return null;
+		}
+
+		var cache = getLevelWrappers(levelWrapper).biomes;
+		var wrapper = cache.get(biomeId);
+
+		if (wrapper != null) {
+			return wrapper;
+		}
+
+		wrapper = wrapperFactory.getBiomeWrapper(biomeId, levelWrapper);
+
+		if (wrapper != null) {
+			cache.put(biomeId, wrapper);
+		}
+
+		return wrapper;
+	}
+
+	// Invalidation
+
+	public static void clearForLevel(IDhApiLevelWrapper levelWrapper) {
+		if (levelWrapper == null) {
+			return;
+		}
+
+		BY_LEVEL.remove(levelWrapper);
+	}
+
+	/**
+	 * Drops all cached wrappers, called when the server stops so wrappers of a previous world are never reused.
+	 */
+	public static void clear() {
+		BY_LEVEL.clear();
+	}
+
+	// Utility
+
+	private static LevelWrappers getLevelWrappers(IDhApiLevelWrapper levelWrapper) {
+		return BY_LEVEL.computeIfAbsent(levelWrapper, key -> new LevelWrappers());
+	}
+}
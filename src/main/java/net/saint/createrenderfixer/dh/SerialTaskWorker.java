@@ -0,0 +1,105 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import net.saint.createrenderfixer.Mod;
+
+/**
+ * Single daemon thread that runs tasks strictly in submission order and logs failed tasks by name.
+ *
+ * The queue is unbounded so submitting never blocks the caller; a warning is logged when the backlog grows
+ * past `BACKLOG_WARNING_THRESHOLD` tasks.
+ */
+public final class SerialTaskWorker {
+
+	// Configuration
+
+	private static final int BACKLOG_WARNING_THRESHOLD = 1_024;
+
+	// State
+
+	private final String description;
+	private final ThreadPoolExecutor executor;
+	private final Executor monitoredExecutor = this::execute;
+
+	// Set while the backlog is above the warning threshold, so the warning is logged once per spike.
+	private final AtomicBoolean isBacklogWarned = new AtomicBoolean();
+
+	// Init
+
+	/**
+	 * Creates a worker running on a thread with the given name, `description` names its tasks in log messages.
+	 */
+	public SerialTaskWorker(String threadName, String description) {
+		this.description = description;
+		this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			var thread = new Thread(runnable, threadName);
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	// Submission
+
+	public CompletableFuture<Void> submit(String taskName, Runnable task) {
+		return CompletableFuture.runAsync(task, monitoredExecutor).whenComplete((result, throwable) -> logFailure(taskName, throwable));
+	}
+
+	/**
+	 * Runs the supplier after all previously submitted tasks and completes with its result.
+	 */
+	public <T> CompletableFuture<T> supply(String taskName, Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, monitoredExecutor).whenComplete((result, throwable) -> logFailure(taskName, throwable));
+	}
+
+	// Synchronization
+
+	/**
+	 * Blocks until the given future completes or the timeout elapses, returns whether it completed normally.
+	 */
+	public boolean await(CompletableFuture<?> future, long timeoutMilliseconds) {
+		try {
+			future.get(timeoutMilliseconds, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException exception) {
+			Mod.LOGGER.warn("Timed out waiting for {} after {} ms.", description, timeoutMilliseconds);
+			return false;
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception exception) {
+			return false;
+		}
+	}
+
+	// Execution
+
+	private void execute(Runnable runnable) {
+		executor.execute(runnable);
+
+		var backlog = executor.getQueue().size();
+
+		if (backlog <= BACKLOG_WARNING_THRESHOLD) {
+			isBacklogWarned.set(false);
+			return;
+		}
+
+		if (isBacklogWarned.compareAndSet(false, true)) {
+			Mod.LOGGER.warn("Worker for {} is falling behind with {} queued tasks.", description, backlog);
+		}
+	}
+
+	private void logFailure(String taskName, Throwable throwable) {
+		if (throwable != null) {
+			Mod.LOGGER.error("Task '" + taskName + "' for " + description + " failed.", throwable);
+		}
+	}
+}
@@ -11,39 +11,108 @@ import com.seibel.distanthorizons.api.objects.render.DhApiRenderableBox;
 import net.minecraft.core.Direction;
 import net.saint.createrenderfixer.Mod;
 
+/**
+ * Generates windmill blade boxes as rotated, axis-aligned bounds.
+ *
+ * Bounds are written into flat coordinate buffers with `BOX_STRIDE` values per box (minimum x, y, z followed
+ * by maximum x, y, z) so per-tick updates can reuse buffers and box instances without allocating.
+ */
 public final class WindmillLODBoxUtil {
 
+	// Configuration
+
+	public static final int BOX_STRIDE = 6;
+
+	private static final Direction.Axis[] AXES = Direction.Axis.values();
+
 	// API
 
-	public static List<DhApiRenderableBox> makeWindmillBladeBoxes(WindmillLODEntry entry, Color bladeColor,
-			EDhApiBlockMaterial bladeMaterial, float rotationAngle) {
-		if (entry == null) {
-			return List.of();
+	/**
+	 * Returns the number of boxes generated for the entry, zero if the entry has no renderable blades.
+	 */
+	public static int getBladeBoxCount(WindmillLODEntry entry) {
+		if (entry == null || entry.bladeGeometry == null) {
+			return 0;
 		}
 
-		var bladeGeometry = entry.bladeGeometry;
+		if (getBladeLengthForGeometry(entry.bladeGeometry) <= 0.0F) {
+			return 0;
+		}
+
+		return getSegmentCountForGeometry(entry.bladeGeometry) * 2;
+	}
+
+	/**
+	 * Writes the rotated blade box bounds of the entry into the coordinate buffer starting at the given offset and
+	 * returns the box count. The buffer must hold `getBladeBoxCount(entry) * BOX_STRIDE` values past the offset.
+	 */
+	public static int writeWindmillBladeBoxes(WindmillLODEntry entry, float rotationAngle, double[] coordinates, int coordinateOffset) {
+		var boxCount = getBladeBoxCount(entry);
 
-		if (bladeGeometry == null) {
-			return List.of();
+		if (boxCount == 0) {
+			return 0;
 		}
 
+		var bladeGeometry = entry.bladeGeometry;
 		var rotationAxis = getRotationAxisForEntry(entry);
-		var bladeSize = getBladeSizeForGeometry(bladeGeometry);
-		var numberOfSegments = getSegmentCountForGeometry(bladeGeometry);
+		var bladeLength = getBladeLengthForGeometry(bladeGeometry);
+		var segmentCount = getSegmentCountForGeometry(bladeGeometry);
+		var volumeScale = getVolumeScaleForRotationAngle(bladeLength, rotationAngle);
+
+		var radians = Math.toRadians(rotationAngle);
+		var sin = Math.sin(radians);
+		var cos = Math.cos(radians);
+		var offset = coordinateOffset;
+
+		for (var axis : AXES) {
+			if (axis == rotationAxis) {
+				continue;
+			}
 
-		if (bladeSize.length() <= 0.0F || numberOfSegments <= 0) {
-			return List.of();
+			offset = writeBladeSegmentsForAxis(coordinates, offset, axis, rotationAxis, bladeLength, bladeGeometry.width(),
+					bladeGeometry.depth(), segmentCount, volumeScale, sin, cos);
 		}
 
-		var volumeScale = getVolumeScaleForRotationAngle(bladeSize.length(), rotationAngle);
-		var baseBoxes = getCrossBoxesForAxis(rotationAxis, bladeSize, numberOfSegments, volumeScale, bladeColor, bladeMaterial);
+		return boxCount;
+	}
+
+	/**
+	 * Copies generated bounds starting at the given offset into `boxCount` existing boxes from `boxStart` on,
+	 * translated by the given vector, in place.
+	 */
+	public static void applyWindmillBladeBoxes(double[] coordinates, int coordinateOffset, int boxCount, List<DhApiRenderableBox> boxes,
+			int boxStart, double translationX, double translationY, double translationZ, Color bladeColor,
+			EDhApiBlockMaterial bladeMaterial) {
+		for (var index = 0; index < boxCount; index++) {
+			var box = boxes.get(boxStart + index);
+			var offset = coordinateOffset + index * BOX_STRIDE;
+
+			setVector(box.minPos, coordinates[offset] + translationX, coordinates[offset + 1] + translationY,
+					coordinates[offset + 2] + translationZ);
+			setVector(box.maxPos, coordinates[offset + 3] + translationX, coordinates[offset + 4] + translationY,
+					coordinates[offset + 5] + translationZ);
+
+			box.color = bladeColor;
+			box.material = bladeMaterial.index;
+		}
+	}
 
-		return rotateBoxesForAxis(baseBoxes, rotationAxis, rotationAngle);
+	/**
+	 * Creates boxes with empty bounds, used to reserve space in a render group before bounds are applied.
+	 */
+	public static List<DhApiRenderableBox> makeEmptyBoxes(int boxCount, Color bladeColor, EDhApiBlockMaterial bladeMaterial) {
+		var boxes = new ArrayList<DhApiRenderableBox>(boxCount);
+
+		for (var index = 0; index < boxCount; index++) {
+			boxes.add(new DhApiRenderableBox(new DhApiVec3d(0.0, 0.0, 0.0), new DhApiVec3d(0.0, 0.0, 0.0), bladeColor, bladeMaterial));
+		}
+
+		return boxes;
 	}
 
 	// Geometry
 
-	private static WindmillBladeSize getBladeSizeForGeometry(WindmillBladeGeometry bladeGeometry) {
+	private static float getBladeLengthForGeometry(WindmillBladeGeometry bladeGeometry) {
 		var bladeLength = bladeGeometry.length();
 		var minimumLength = Math.max(0.0F, Mod.CONFIG.windmillBladeMinimumLength);
 
@@ -51,7 +120,7 @@ public final class WindmillLODBoxUtil {
 			bladeLength = minimumLength;
 		}
 
-		return new WindmillBladeSize(bladeLength, bladeGeometry.width(), bladeGeometry.depth());
+		return bladeLength;
 	}
 
 	private static int getSegmentCountForGeometry(WindmillBladeGeometry bladeGeometry) {
@@ -64,93 +133,41 @@ public final class WindmillLODBoxUtil {
 		return segmentCount;
 	}
 
-	private static List<DhApiRenderableBox> getCrossBoxesForAxis(Direction.Axis rotationAxis, WindmillBladeSize bladeSize, int segmentCount,
-			float volumeScale, Color bladeColor, EDhApiBlockMaterial bladeMaterial) {
-		var boxes = new ArrayList<DhApiRenderableBox>(segmentCount * 2);
-
-		switch (rotationAxis) {
-			case X -> {
-				addBladeSegmentsForAxis(boxes, Direction.Axis.Y, rotationAxis, bladeSize, segmentCount, volumeScale, bladeColor,
-						bladeMaterial);
-				addBladeSegmentsForAxis(boxes, Direction.Axis.Z, rotationAxis, bladeSize, segmentCount, volumeScale, bladeColor,
-						bladeMaterial);
-			}
-			case Y -> {
-				addBladeSegmentsForAxis(boxes, Direction.Axis.X, rotationAxis, bladeSize, segmentCount, volumeScale, bladeColor,
-						bladeMaterial);
-				addBladeSegmentsForAxis(boxes, Direction.Axis.Z, rotationAxis, bladeSize, segmentCount, volumeScale, bladeColor,
-						bladeMaterial);
-			}
-			case Z -> {
-				addBladeSegmentsForAxis(boxes, Direction.Axis.X, rotationAxis, bladeSize, segmentCount, volumeScale, bladeColor,
-						bladeMaterial);
-				addBladeSegmentsForAxis(boxes, Direction.Axis.Y, rotationAxis, bladeSize, segmentCount, volumeScale, bladeColor,
-						bladeMaterial);
-			}
-		}
-
-		return boxes;
-	}
-
-	private static void addBladeSegmentsForAxis(List<DhApiRenderableBox> boxes, Direction.Axis bladeAxis, Direction.Axis rotationAxis,
-			WindmillBladeSize bladeSize, int segmentCount, float volumeScale, Color bladeColor, EDhApiBlockMaterial bladeMaterial) {
-		if (segmentCount <= 0 || bladeSize.length() <= 0.0F) {
-			return;
-		}
-
-		var segmentLength = bladeSize.length() / segmentCount;
+	private static int writeBladeSegmentsForAxis(double[] coordinates, int offset, Direction.Axis bladeAxis, Direction.Axis rotationAxis,
+			float bladeLength, float bladeWidth, float bladeDepth, int segmentCount, float volumeScale, double sin, double cos) {
+		var segmentLength = bladeLength / segmentCount;
 		var halfSegmentLength = segmentLength / 2.0F;
-		var startOffset = -bladeSize.length() / 2.0F + halfSegmentLength;
-		var halfBladeWidth = bladeSize.width() / 2.0F;
-		var halfBladeDepth = bladeSize.depth() / 2.0F;
-		var halfDepthX = halfBladeDepth;
-		var halfDepthY = halfBladeDepth;
-		var halfDepthZ = halfBladeDepth;
+		var startOffset = -bladeLength / 2.0F + halfSegmentLength;
+		var halfBladeWidth = bladeWidth / 2.0F * volumeScale;
+		var halfBladeDepth = bladeDepth / 2.0F;
 
 		var widthAxis = getInPlaneWidthAxisForBlade(rotationAxis, bladeAxis);
 
-		switch (widthAxis) {
-			case X -> halfDepthX = halfBladeWidth;
-			case Y -> halfDepthY = halfBladeWidth;
-			case Z -> halfDepthZ = halfBladeWidth;
-		}
+		var halfExtentX = widthAxis == Direction.Axis.X ? halfBladeWidth : halfBladeDepth;
+		var halfExtentY = widthAxis == Direction.Axis.Y ? halfBladeWidth : halfBladeDepth;
+		var halfExtentZ = widthAxis == Direction.Axis.Z ? halfBladeWidth : halfBladeDepth;
 
-		switch (widthAxis) {
-			case X -> halfDepthX *= volumeScale;
-			case Y -> halfDepthY *= volumeScale;
-			case Z -> halfDepthZ *= volumeScale;
+		switch (bladeAxis) {
+			case X -> halfExtentX = halfSegmentLength;
+			case Y -> halfExtentY = halfSegmentLength;
+			case Z -> halfExtentZ = halfSegmentLength;
 		}
 
 		for (var index = 0; index < segmentCount; index++) {
-			var offset = startOffset + segmentLength * index;
-			var minimumX = -halfDepthX;
-			var maximumX = halfDepthX;
-			var minimumY = -halfDepthY;
-			var maximumY = halfDepthY;
-			var minimumZ = -halfDepthZ;
-			var maximumZ = halfDepthZ;
-
-			switch (bladeAxis) {
-				case X -> {
-					minimumX = offset - halfSegmentLength;
-					maximumX = offset + halfSegmentLength;
-				}
-				case Y -> {
-					minimumY = offset - halfSegmentLength;
-					maximumY = offset + halfSegmentLength;
-				}
-				case Z -> {
-					minimumZ = offset - halfSegmentLength;
-					maximumZ = offset + halfSegmentLength;
-				}
-			}
+			var segmentCenter = startOffset + segmentLength * index;
+			var centerX = bladeAxis == Direction.Axis.X ? segmentCenter : 0.0;
+			var centerY = bladeAxis == Direction.Axis.Y ? segmentCenter : 0.0;
+			var centerZ = bladeAxis == Direction.Axis.Z ? segmentCenter : 0.0;
 
-			boxes.add(createBox(minimumX, minimumY, minimumZ, maximumX, maximumY, maximumZ, bladeColor, bladeMaterial));
+			writeRotatedBox(coordinates, offset, rotationAxis, centerX, centerY, centerZ, halfExtentX, halfExtentY, halfExtentZ, sin, cos);
+			offset += BOX_STRIDE;
 		}
+
+		return offset;
 	}
 
 	private static Direction.Axis getInPlaneWidthAxisForBlade(Direction.Axis rotationAxis, Direction.Axis bladeAxis) {
-		for (var axis : Direction.Axis.values()) {
+		for (var axis : AXES) {
 			if (axis != rotationAxis && axis != bladeAxis) {
 				return axis;
 			}
@@ -184,77 +201,57 @@ public final class WindmillLODBoxUtil {
 
 	// Rotation
 
-	private static List<DhApiRenderableBox> rotateBoxesForAxis(List<DhApiRenderableBox> boxes, Direction.Axis rotationAxis,
-			float rotationAngle) {
-		if (boxes == null || boxes.isEmpty()) {
-			return List.of();
-		}
-
-		var radians = Math.toRadians(rotationAngle);
-		var sin = Math.sin(radians);
-		var cos = Math.cos(radians);
-		var rotated = new ArrayList<DhApiRenderableBox>(boxes.size());
-
-		for (var box : boxes) {
-			rotated.add(getRotatedBoxForAxis(box, rotationAxis, sin, cos));
-		}
-
-		return rotated;
-	}
+	/**
+	 * Writes the axis-aligned bounds of a box rotated about the origin. Rotating the center and projecting the
+	 * half extents onto the rotated axes gives the same bounds as rotating all eight corners.
+	 */
+	private static void writeRotatedBox(double[] coordinates, int offset, Direction.Axis rotationAxis, double centerX, double centerY,
+			double centerZ, double halfExtentX, double halfExtentY, double halfExtentZ, double sin, double cos) {
+		var absoluteSin = Math.abs(sin);
+		var absoluteCos = Math.abs(cos);
+
+		var rotatedCenterX = centerX;
+		var rotatedCenterY = centerY;
+		var rotatedCenterZ = centerZ;
+		var rotatedHalfExtentX = halfExtentX;
+		var rotatedHalfExtentY = halfExtentY;
+		var rotatedHalfExtentZ = halfExtentZ;
 
-	private static DhApiRenderableBox getRotatedBoxForAxis(DhApiRenderableBox box, Direction.Axis rotationAxis, double sin, double cos) {
-		var minimumX = box.minPos.x;
-		var minimumY = box.minPos.y;
-		var minimumZ = box.minPos.z;
-		var maximumX = box.maxPos.x;
-		var maximumY = box.maxPos.y;
-		var maximumZ = box.maxPos.z;
-
-		var rotatedMinimumX = Double.POSITIVE_INFINITY;
-		var rotatedMinimumY = Double.POSITIVE_INFINITY;
-		var rotatedMinimumZ = Double.POSITIVE_INFINITY;
-		var rotatedMaximumX = Double.NEGATIVE_INFINITY;
-		var rotatedMaximumY = Double.NEGATIVE_INFINITY;
-		var rotatedMaximumZ = Double.NEGATIVE_INFINITY;
-
-		for (var x : new double[] { minimumX, maximumX }) {
-			for (var y : new double[] { minimumY, maximumY }) {
-				for (var z : new double[] { minimumZ, maximumZ }) {
-					var rotatedPoint = rotatePointForAxis(rotationAxis, x, y, z, sin, cos);
-
-					rotatedMinimumX = Math.min(rotatedMinimumX, rotatedPoint.x);
-					rotatedMinimumY = Math.min(rotatedMinimumY, rotatedPoint.y);
-					rotatedMinimumZ = Math.min(rotatedMinimumZ, rotatedPoint.z);
-					rotatedMaximumX = Math.max(rotatedMaximumX, rotatedPoint.x);
-					rotatedMaximumY = Math.max(rotatedMaximumY, rotatedPoint.y);
-					rotatedMaximumZ = Math.max(rotatedMaximumZ, rotatedPoint.z);
-				}
+		switch (rotationAxis) {
+			case X -> {
+				rotatedCenterY = centerY * cos - centerZ * sin;
+				rotatedCenterZ = centerY * sin + centerZ * cos;
+				rotatedHalfExtentY = absoluteCos * halfExtentY + absoluteSin * halfExtentZ;
+				rotatedHalfExtentZ = absoluteSin * halfExtentY + absoluteCos * halfExtentZ;
+			}
+			case Y -> {
+				rotatedCenterX = centerX * cos + centerZ * sin;
+				rotatedCenterZ = -centerX * sin + centerZ * cos;
+				rotatedHalfExtentX = absoluteCos * halfExtentX + absoluteSin * halfExtentZ;
+				rotatedHalfExtentZ = absoluteSin * halfExtentX + absoluteCos * halfExtentZ;
+			}
+			case Z -> {
+				rotatedCenterX = centerX * cos - centerY * sin;
+				rotatedCenterY = centerX * sin + centerY * cos;
+				rotatedHalfExtentX = absoluteCos * halfExtentX + absoluteSin * halfExtentY;
+				rotatedHalfExtentY = absoluteSin * halfExtentX + absoluteCos * halfExtentY;
 			}
 		}
 
-		var minimumPos = new DhApiVec3d(rotatedMinimumX, rotatedMinimumY, rotatedMinimumZ);
-		var maximumPos = new DhApiVec3d(rotatedMaximumX, rotatedMaximumY, rotatedMaximumZ);
-		var material = EDhApiBlockMaterial.getFromIndex(box.material);
-
-		return new DhApiRenderableBox(minimumPos, maximumPos, box.color, material);
-	}
-
-	private static DhApiVec3d rotatePointForAxis(Direction.Axis rotationAxis, double x, double y, double z, double sin, double cos) {
-		return switch (rotationAxis) {
-			case X -> new DhApiVec3d(x, y * cos - z * sin, y * sin + z * cos);
-			case Y -> new DhApiVec3d(x * cos + z * sin, y, -x * sin + z * cos);
-			case Z -> new DhApiVec3d(x * cos - y * sin, x * sin + y * cos, z);
-		};
+		coordinates[offset] = rotatedCenterX - rotatedHalfExtentX;
+		coordinates[offset + 1] = rotatedCenterY - rotatedHalfExtentY;
+		coordinates[offset + 2] = rotatedCenterZ - rotatedHalfExtentZ;
+		coordinates[offset + 3] = rotatedCenterX + rotatedHalfExtentX;
+		coordinates[offset + 4] = rotatedCenterY + rotatedHalfExtentY;
+		coordinates[offset + 5] = rotatedCenterZ + rotatedHalfExtentZ;
 	}
 
 	// Box Form
 
-	private static DhApiRenderableBox createBox(double minimumX, double minimumY, double minimumZ, double maximumX, double maximumY,
-			double maximumZ, Color bladeColor, EDhApiBlockMaterial bladeMaterial) {
-		var minimumPos = new DhApiVec3d(minimumX, minimumY, minimumZ);
-		var maximumPos = new DhApiVec3d(maximumX, maximumY, maximumZ);
-
-		return new DhApiRenderableBox(minimumPos, maximumPos, bladeColor, bladeMaterial);
+	private static void setVector(DhApiVec3d vector, double x, double y, double z) {
+		vector.x = x;
+		vector.y = y;
+		vector.z = z;
 	}
 
 }
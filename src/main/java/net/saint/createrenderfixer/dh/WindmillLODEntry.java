@@ -1,5 +1,8 @@
 package net.saint.createrenderfixer.dh;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -8,6 +11,7 @@ import org.jetbrains.annotations.Nullable;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.NbtUtils;
 import net.minecraft.nbt.Tag;
 import net.saint.createrenderfixer.library.Size2D;
@@ -174,6 +178,44 @@ public final class WindmillLODEntry {
 		}
 	}
 
+	/**
+	 * Encodes entries as a list of compounds, skipping entries that can not be encoded.
+	 */
+	public static ListTag toNbtList(Collection<WindmillLODEntry> entries) {
+		var list = new ListTag();
+
+		for (var entry : entries) {
+			var windmillTag = entry != null ? entry.toNbt() : null;
+
+			if (windmillTag != null) {
+				list.add(windmillTag);
+			}
+		}
+
+		return list;
+	}
+
+	/**
+	 * Decodes a list written by `toNbtList`, skipping invalid entries.
+	 */
+	public static List<WindmillLODEntry> fromNbtList(ListTag list) {
+		var entries = new ArrayList<WindmillLODEntry>(list.size());
+
+		for (var entryRaw : list) {
+			if (!(entryRaw instanceof CompoundTag entryTag)) {
+				continue;
+			}
+
+			var entry = fromNbt(entryTag);
+
+			if (entry != null) {
+				entries.add(entry);
+			}
+		}
+
+		return entries;
+	}
+
 	// NBT Resolve
 
 	private static String getStringForKeys(CompoundTag entryTag, String primaryKey, String... fallbackKeys) {
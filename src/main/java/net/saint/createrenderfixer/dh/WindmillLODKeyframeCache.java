@@ -0,0 +1,105 @@
+package net.saint.createrenderfixer.dh;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.core.Direction;
+import net.minecraft.util.Mth;
+import net.saint.createrenderfixer.Mod;
+
+/**
+ * Cache of windmill blade box bounds precomputed over one quarter turn.
+ *
+ * The blade cross and its rotation volume scale repeat every 90°, so a quarter turn covers all angles. Tables
+ * depend only on blade geometry and rotation axis and are shared by all windmills with the same shape. Color and
+ * material are applied when boxes are copied and are not part of the key.
+ */
+public final class WindmillLODKeyframeCache {
+
+	// Configuration
+
+	private static final float QUARTER_TURN_DEGREES = 90.0F;
+	private static final int MAXIMUM_KEYFRAME_RESOLUTION = 3_600;
+
+	// Library
+
+	private record KeyframeKey(WindmillBladeGeometry bladeGeometry, Direction.Axis rotationAxis) {
+	}
+
+	// State
+
+	private final Map<KeyframeKey, double[]> keyframesByKey = new ConcurrentHashMap<>();
+
+	// Access
+
+	/**
+	 * Returns the keyframe table for the entry's blade shape, building it on first use. Each keyframe holds
+	 * `getBladeBoxCount(entry) * BOX_STRIDE` values. Returns `null` if the entry has no renderable blades.
+	 */
+	@Nullable
+	public double[] getKeyframes(WindmillLODEntry entry) {
+		var boxCount = WindmillLODBoxUtil.getBladeBoxCount(entry);
+
+		if (boxCount == 0) {
+			return null;
+		}
+
+		var key = new KeyframeKey(entry.bladeGeometry, entry.rotationAxis);
+
+		return keyframesByKey.computeIfAbsent(key, ignored -> buildKeyframes(entry, boxCount));
+	}
+
+	/**
+	 * Returns the offset into a keyframe table of the keyframe nearest to the given angle.
+	 */
+	public static int getKeyframeOffset(double[] keyframes, int boxCount, float rotationAngle) {
+		if (keyframes == null || boxCount == 0) {
+			return 0;
+		}
+
+		var keyframeLength = boxCount * WindmillLODBoxUtil.BOX_STRIDE;
+		var resolution = keyframes.length / keyframeLength;
+		var quarterTurnAngle = Mth.positiveModulo(rotationAngle, QUARTER_TURN_DEGREES);
+		var keyframeIndex = Math.round(quarterTurnAngle / QUARTER_TURN_DEGREES * resolution) % resolution;
+
+		return keyframeIndex * keyframeLength;
+	}
+
+	/**
+	 * Returns the angle between two neighboring keyframes. Rotations smaller than this may snap to the same
+	 * keyframe and produce identical boxes.
+	 */
+	public static float getKeyframeStepDegrees() {
+		return QUARTER_TURN_DEGREES / getKeyframeResolution();
+	}
+
+	// Mutation
+
+	/**
+	 * Drops all tables, called when config values that shape blade geometry may have changed.
+	 */
+	public void clear() {
+		keyframesByKey.clear();
+	}
+
+	// Build
+
+	private static double[] buildKeyframes(WindmillLODEntry entry, int boxCount) {
+		var resolution = getKeyframeResolution();
+		var keyframeLength = boxCount * WindmillLODBoxUtil.BOX_STRIDE;
+		var keyframes = new double[resolution * keyframeLength];
+
+		for (var keyframeIndex = 0; keyframeIndex < resolution; keyframeIndex++) {
+			var rotationAngle = QUARTER_TURN_DEGREES * keyframeIndex / resolution;
+			WindmillLODBoxUtil.writeWindmillBladeBoxes(entry, rotationAngle, keyframes, keyframeIndex * keyframeLength);
+		}
+
+		return keyframes;
+	}
+
+	private static int getKeyframeResolution() {
+		return Mth.clamp(Mod.CONFIG.windmillRotationKeyframeResolution, 1, MAXIMUM_KEYFRAME_RESOLUTION);
+	}
+}
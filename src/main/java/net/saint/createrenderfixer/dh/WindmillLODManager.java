@@ -1,29 +1,103 @@
 package net.saint.createrenderfixer.dh;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.jetbrains.annotations.Nullable;
 
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * Registry of windmill LOD entries, bucketed per dimension with a coarse grid over anchor positions so
+ * callers can query one dimension or all entries within a radius without scanning every windmill.
+ */
 public final class WindmillLODManager {
 
+	// Configuration
+
+	// Grid cells span 256x256 blocks, radius queries visit only the cells overlapping their bounds.
+	private static final int CELL_SHIFT = 8;
+
+	// Library
+
+	private static final class DimensionBucket {
+		final Map<UUID, WindmillLODEntry> entries = new ConcurrentHashMap<>();
+		final Map<Long, Set<WindmillLODEntry>> cells = new ConcurrentHashMap<>();
+	}
+
 	// State
 
 	private final Map<UUID, WindmillLODEntry> entries = new ConcurrentHashMap<>();
+	private final Map<String, DimensionBucket> buckets = new ConcurrentHashMap<>();
 
 	// Access
 
-	public Iterable<WindmillLODEntry> entries() {
-		return entries.values();
+	public Collection<WindmillLODEntry> entriesInDimension(String dimensionId) {
+		var bucket = dimensionId != null ? buckets.get(dimensionId) : null;
+
+		if (bucket == null) {
+			return List.of();
+		}
+
+		return bucket.entries.values();
+	}
+
+	/**
+	 * Returns all entries in the dimension whose anchor block center lies within the given radius of a point.
+	 */
+	public List<WindmillLODEntry> entriesWithinRadius(String dimensionId, double x, double y, double z, double radius) {
+		var bucket = dimensionId != null ? buckets.get(dimensionId) : null;
+		var result = new ArrayList<WindmillLODEntry>();
+
+		if (bucket == null || radius < 0.0) {
+			return result;
+		}
+
+		var radiusSquared = radius * radius;
+		var minCellX = (int) Math.floor(x - radius) >> CELL_SHIFT;
+		var maxCellX = (int) Math.floor(x + radius) >> CELL_SHIFT;
+		var minCellZ = (int) Math.floor(z - radius) >> CELL_SHIFT;
+		var maxCellZ = (int) Math.floor(z + radius) >> CELL_SHIFT;
+		var cellCount = (long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+
+		// For radii spanning more cells than there are occupied ones, scanning the occupied cells is cheaper.
+		if (cellCount > bucket.cells.size()) {
+			for (var cellEntry : bucket.cells.entrySet()) {
+				var cellX = ChunkPos.getX(cellEntry.getKey());
+				var cellZ = ChunkPos.getZ(cellEntry.getKey());
+
+				if (cellX < minCellX || cellX > maxCellX || cellZ < minCellZ || cellZ > maxCellZ) {
+					continue;
+				}
+
+				addEntriesWithinRadius(result, cellEntry.getValue(), x, y, z, radiusSquared);
+			}
+
+			return result;
+		}
+
+		for (var cellX = minCellX; cellX <= maxCellX; cellX++) {
+			for (var cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+				var cell = bucket.cells.get(ChunkPos.asLong(cellX, cellZ));
+
+				if (cell != null) {
+					addEntriesWithinRadius(result, cell, x, y, z, radiusSquared);
+				}
+			}
+		}
+
+		return result;
 	}
 
 	// Registration
 
 	public void register(WindmillLODEntry entry) {
-		if (entry == null) {
+		if (!isEntryIndexable(entry)) {
 			return;
 		}
 
@@ -37,9 +111,12 @@ public final class WindmillLODManager {
 
 				return;
 			}
+
+			removeFromIndex(existing);
 		}
 
 		entries.put(entry.contraptionId, entry);
+		addToIndex(entry);
 	}
 
 	public boolean unregister(UUID contraptionId) {
@@ -47,7 +124,15 @@ public final class WindmillLODManager {
 			return false;
 		}
 
-		return entries.remove(contraptionId) != null;
+		var removed = entries.remove(contraptionId);
+
+		if (removed == null) {
+			return false;
+		}
+
+		removeFromIndex(removed);
+
+		return true;
 	}
 
 	public void clearForWorld(String dimensionId) {
@@ -55,7 +140,15 @@ public final class WindmillLODManager {
 			return;
 		}
 
-		entries.entrySet().removeIf(entry -> dimensionId.equals(entry.getValue().dimensionId));
+		var bucket = buckets.remove(dimensionId);
+
+		if (bucket == null) {
+			return;
+		}
+
+		for (var contraptionId : bucket.entries.keySet()) {
+			entries.remove(contraptionId);
+		}
 	}
 
 	@Nullable
@@ -81,17 +174,77 @@ public final class WindmillLODManager {
 
 	public void loadPersistent(List<WindmillLODEntry> persistentEntries) {
 		entries.clear();
+		buckets.clear();
 
 		if (persistentEntries == null || persistentEntries.isEmpty()) {
 			return;
 		}
 
 		for (var entry : persistentEntries) {
-			if (entry == null) {
+			if (!isEntryIndexable(entry)) {
 				continue;
 			}
 
-			entries.put(entry.contraptionId, entry);
+			var existing = entries.put(entry.contraptionId, entry);
+
+			if (existing != null) {
+				removeFromIndex(existing);
+			}
+
+			addToIndex(entry);
+		}
+	}
+
+	// Index
+
+	private void addToIndex(WindmillLODEntry entry) {
+		var bucket = buckets.computeIfAbsent(entry.dimensionId, key -> new DimensionBucket());
+		bucket.entries.put(entry.contraptionId, entry);
+		bucket.cells.computeIfAbsent(getCellKey(entry), key -> ConcurrentHashMap.newKeySet()).add(entry);
+	}
+
+	private void removeFromIndex(WindmillLODEntry entry) {
+		var bucket = buckets.get(entry.dimensionId);
+
+		if (bucket == null) {
+			return;
 		}
+
+		bucket.entries.remove(entry.contraptionId, entry);
+		bucket.cells.computeIfPresent(getCellKey(entry), (key, cell) -> {
+			cell.remove(entry);
+			return cell.isEmpty() ? null : cell;
+		});
+	}
+
+	// Utility
+
+	/**
+	 * Entries without a dimension or anchor can not be indexed and are rejected, so every registered entry is
+	 * found and cleared through its dimension bucket.
+	 */
+	private static boolean isEntryIndexable(@Nullable WindmillLODEntry entry) {
+		return entry != null && entry.contraptionId != null && entry.dimensionId != null && entry.anchorPosition != null;
+	}
+
+	private static long getCellKey(WindmillLODEntry entry) {
+		return ChunkPos.asLong(entry.anchorPosition.getX() >> CELL_SHIFT, entry.anchorPosition.getZ() >> CELL_SHIFT);
+	}
+
+	private static void addEntriesWithinRadius(List<WindmillLODEntry> result, Set<WindmillLODEntry> cell, double x, double y, double z,
+			double radiusSquared) {
+		for (var entry : cell) {
+			if (isEntryWithinRadius(entry, x, y, z, radiusSquared)) {
+				result.add(entry);
+			}
+		}
+	}
+
+	private static boolean isEntryWithinRadius(WindmillLODEntry entry, double x, double y, double z, double radiusSquared) {
+		var deltaX = entry.anchorPosition.getX() + 0.5 - x;
+		var deltaY = entry.anchorPosition.getY() + 0.5 - y;
+		var deltaZ = entry.anchorPosition.getZ() + 0.5 - z;
+
+		return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ <= radiusSquared;
 	}
 }
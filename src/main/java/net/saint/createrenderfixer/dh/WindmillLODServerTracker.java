@@ -33,11 +33,7 @@ public final class WindmillLODServerTracker {
 
 		var dimensionId = level.dimension().location().toString();
 
-		for (var entry : Mod.WINDMILL_LOD_MANAGER.entries()) {
-			if (!dimensionId.equals(entry.dimensionId)) {
-				continue;
-			}
-
+		for (var entry : Mod.WINDMILL_LOD_MANAGER.entriesInDimension(dimensionId)) {
 			updateEntryFromLevel(server, level, entry, currentTick);
 		}
 	}
@@ -225,11 +221,7 @@ public final class WindmillLODServerTracker {
 		var currentTick = level.getGameTime();
 		var server = level.getServer();
 
-		for (var entry : Mod.WINDMILL_LOD_MANAGER.entries()) {
-			if (!dimensionId.equals(entry.dimensionId)) {
-				continue;
-			}
-
+		for (var entry : Mod.WINDMILL_LOD_MANAGER.entriesInDimension(dimensionId)) {
 			synchronizeEntry(server, entry, entry.rotationSpeed, 0.0F, currentTick, "FORCE_ZERO");
 			updatedCount++;
 		}
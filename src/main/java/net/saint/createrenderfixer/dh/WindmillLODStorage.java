@@ -0,0 +1,88 @@
+package net.saint.createrenderfixer.dh;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.saint.createrenderfixer.Mod;
+
+/**
+ * Reads and writes windmill LOD entries as `<world>/data/create-render-fixer/windmills.dat`.
+ */
+public final class WindmillLODStorage {
+
+	// Configuration
+
+	private static final String FILE_NAME = "windmills.dat";
+	private static final String NBT_WINDMILLS = "windmills";
+
+	// Load
+
+	/**
+	 * Returns the stored windmill entries or `null` if no windmill file has been written yet.
+	 */
+	@Nullable
+	public static List<WindmillLODEntry> read(MinecraftServer server) {
+		var file = getFile(server);
+
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+
+		try (var input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+			return decode(NbtIo.read(input));
+		} catch (IOException | RuntimeException exception) {
+			Mod.LOGGER.error("Could not read windmill LOD file '{}'.", file, exception);
+			return null;
+		}
+	}
+
+	// Save
+
+	/**
+	 * Writes the windmill file and returns whether it was written.
+	 */
+	public static boolean write(MinecraftServer server, List<WindmillLODEntry> windmills) {
+		var file = getFile(server);
+
+		try {
+			var root = encode(windmills);
+			ContraptionStorageWriter.writeCompressedAtomically(file, output -> NbtIo.write(root, output));
+
+			return true;
+		} catch (IOException exception) {
+			Mod.LOGGER.error("Could not write windmill LOD file '{}'.", file, exception);
+
+			return false;
+		}
+	}
+
+	// Encoding
+
+	private static CompoundTag encode(List<WindmillLODEntry> windmills) {
+		var root = new CompoundTag();
+		root.put(NBT_WINDMILLS, WindmillLODEntry.toNbtList(windmills));
+
+		return root;
+	}
+
+	private static List<WindmillLODEntry> decode(CompoundTag root) {
+		return WindmillLODEntry.fromNbtList(root.getList(NBT_WINDMILLS, Tag.TAG_COMPOUND));
+	}
+
+	// Utility
+
+	private static Path getFile(MinecraftServer server) {
+		return ContraptionRegionStorage.getRootDirectory(server).resolve(FILE_NAME);
+	}
+}
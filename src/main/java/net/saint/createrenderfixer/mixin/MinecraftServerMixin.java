@@ -0,0 +1,22 @@
+package net.saint.createrenderfixer.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import net.minecraft.server.MinecraftServer;
+import net.saint.createrenderfixer.dh.ContraptionPersistencyUtil;
+
+/**
+ * Saves contraption LOD data alongside every world save (autosave, `/save-all` and shutdown), before
+ * vanilla writes saved data to disk.
+ */
+@Mixin(MinecraftServer.class)
+public abstract class MinecraftServerMixin {
+
+	@Inject(method = "saveAllChunks", at = @At("HEAD"))
+	private void crf$saveContraptionData(boolean suppressLog, boolean flush, boolean forced, CallbackInfoReturnable<Boolean> callbackInfo) {
+		ContraptionPersistencyUtil.save((MinecraftServer) (Object) this, flush);
+	}
+}
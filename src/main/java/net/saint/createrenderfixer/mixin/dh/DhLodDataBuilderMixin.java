@@ -4,7 +4,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import com.seibel.distanthorizons.core.dataObjects.transformers.LodDataBuilder;
 import com.seibel.distanthorizons.core.wrapperInterfaces.block.IBlockStateWrapper;
@@ -14,10 +16,15 @@ import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
 
 import net.saint.createrenderfixer.Mod;
 import net.saint.createrenderfixer.dh.ContraptionBlockRegistry;
+import net.saint.createrenderfixer.dh.ContraptionChunkIndex;
 import net.saint.createrenderfixer.dh.DhBridge;
+import net.saint.createrenderfixer.dh.DhWrapperCache;
 
 /**
  * Redirects block lookups during DH chunk baking to inject contraption states directly.
+ *
+ * The chunk's contraption index is resolved once when the bake starts; chunks without contraption blocks
+ * fall straight through to DH's own lookups.
  */
 @Mixin(value = LodDataBuilder.class, remap = false)
 public abstract class DhLodDataBuilderMixin {
@@ -27,51 +34,69 @@ public abstract class DhLodDataBuilderMixin {
 	private static final AtomicInteger CALL_LOG_TALLY = new AtomicInteger();
 	private static final AtomicInteger INJECT_LOG_TALLY = new AtomicInteger();
 
+	private static final ThreadLocal<ContraptionChunkIndex> CHUNK_INDEX = new ThreadLocal<>();
+
 	// Injections
 
-	@Redirect(method = "createFromChunk", at = @At(value = "INVOKE", target = "Lcom/seibel/distanthorizons/core/wrapperInterfaces/chunk/IChunkWrapper;getLightBlockingHeightMapValue(II)I"))
-	private static int crf$boostLightBlockingHeightMap(IChunkWrapper chunkWrapper, int relativeX, int relativeZ, ILevelWrapper levelWrapper,
-			IChunkWrapper originalChunkWrapper) {
-		if (!Mod.CONFIG.injectContraptionLODs) {
-			return chunkWrapper.getLightBlockingHeightMapValue(relativeX, relativeZ);
+	@Inject(method = "createFromChunk", at = @At("HEAD"))
+	private static void crf$resolveContraptionChunkIndex(ILevelWrapper levelWrapper, IChunkWrapper chunkWrapper,
+			CallbackInfoReturnable<?> callbackInfo) {
+		if (!Mod.CONFIG.injectContraptionLODs || levelWrapper == null || chunkWrapper == null) {
+			CHUNK_INDEX.remove();
+			return;
 		}
 
-		var dimensionId = levelWrapper.getDhIdentifier();
 		var chunkPosition = chunkWrapper.getChunkPos();
-		var worldX = (chunkPosition.getX() << 4) + relativeX;
-		var worldZ = (chunkPosition.getZ() << 4) + relativeZ;
+		var chunkIndex = ContraptionBlockRegistry.findChunkIndex(levelWrapper.getDhIdentifier(), chunkPosition.getX(),
+				chunkPosition.getZ());
+
+		CHUNK_INDEX.set(chunkIndex);
+	}
+
+	@Inject(method = "createFromChunk", at = @At("RETURN"))
+	private static void crf$clearContraptionChunkIndex(ILevelWrapper levelWrapper, IChunkWrapper chunkWrapper,
+			CallbackInfoReturnable<?> callbackInfo) {
+		// Release the index so idle DH worker threads do not keep the last chunk's snapshot alive.
+		CHUNK_INDEX.remove();
+	}
+
+	@Redirect(method = "createFromChunk", at = @At(value = "INVOKE", target = "Lcom/seibel/distanthorizons/core/wrapperInterfaces/chunk/IChunkWrapper;getLightBlockingHeightMapValue(II)I"))
+	private static int crf$boostLightBlockingHeightMap(IChunkWrapper chunkWrapper, int relativeX, int relativeZ, ILevelWrapper levelWrapper,
+			IChunkWrapper originalChunkWrapper) {
 		var originalValue = chunkWrapper.getLightBlockingHeightMapValue(relativeX, relativeZ);
+		var chunkIndex = CHUNK_INDEX.get();
 
-		return ContraptionBlockRegistry.highestYInColumn(dimensionId, worldX, worldZ, originalValue);
+		if (chunkIndex == null) {
+			return originalValue;
+		}
+
+		return Math.max(originalValue, chunkIndex.highestY(relativeX, relativeZ));
 	}
 
 	@Redirect(method = "createFromChunk", at = @At(value = "INVOKE", target = "Lcom/seibel/distanthorizons/core/wrapperInterfaces/chunk/IChunkWrapper;getSolidHeightMapValue(II)I"))
 	private static int crf$boostSolidHeightMap(IChunkWrapper chunkWrapper, int relativeX, int relativeZ, ILevelWrapper levelWrapper,
 			IChunkWrapper originalChunkWrapper) {
-		if (!Mod.CONFIG.injectContraptionLODs) {
-			return chunkWrapper.getSolidHeightMapValue(relativeX, relativeZ);
-		}
-
-		var dimensionId = levelWrapper.getDhIdentifier();
-		var chunkPosition = chunkWrapper.getChunkPos();
-		var worldX = (chunkPosition.getX() << 4) + relativeX;
-		var worldZ = (chunkPosition.getZ() << 4) + relativeZ;
 		var originalValue = chunkWrapper.getSolidHeightMapValue(relativeX, relativeZ);
+		var chunkIndex = CHUNK_INDEX.get();
+
+		if (chunkIndex == null) {
+			return originalValue;
+		}
 
-		return ContraptionBlockRegistry.highestYInColumn(dimensionId, worldX, worldZ, originalValue);
+		return Math.max(originalValue, chunkIndex.highestY(relativeX, relativeZ));
 	}
 
 	@Redirect(method = "createFromChunk", at = @At(value = "INVOKE", target = "Lcom/seibel/distanthorizons/core/wrapperInterfaces/chunk/IChunkWrapper;getBlockState(IIILcom/seibel/distanthorizons/core/wrapperInterfaces/misc/IMutableBlockPosWrapper;Lcom/seibel/distanthorizons/core/wrapperInterfaces/block/IBlockStateWrapper;)Lcom/seibel/distanthorizons/core/wrapperInterfaces/block/IBlockStateWrapper;"))
 	private static IBlockStateWrapper crf$injectContraptionBlocks(IChunkWrapper chunkWrapper, int relX, int relY, int relZ,
 			IMutableBlockPosWrapper mutablePos, IBlockStateWrapper cachedState, ILevelWrapper levelWrapper,
 			IChunkWrapper originalChunkWrapper) {
-		if (!Mod.CONFIG.injectContraptionLODs) {
+		var chunkIndex = CHUNK_INDEX.get();
+
+		if (chunkIndex == null) {
 			return chunkWrapper.getBlockState(relX, relY, relZ, mutablePos, cachedState);
 		}
 
-		var wrapperFactory = DhBridge.wrapperFactory();
-
-		if (wrapperFactory != null) {
+		if (DhBridge.wrapperFactory() != null) {
 			var dimensionId = levelWrapper.getDhIdentifier();
 
 			if (CALL_LOG_TALLY.getAndIncrement() == 0) {
@@ -79,16 +104,20 @@ public abstract class DhLodDataBuilderMixin {
 						dimensionId);
 			}
 
-			var chunkPosition = chunkWrapper.getChunkPos();
-			var worldX = (chunkPosition.getX() << 4) + relX;
-			var worldZ = (chunkPosition.getZ() << 4) + relZ;
-
-			var overrideData = ContraptionBlockRegistry.find(dimensionId, worldX, relY, worldZ);
+			var overrideData = chunkIndex.find(relX, relY, relZ);
 
 			if (overrideData != null) {
+				var chunkPosition = chunkWrapper.getChunkPos();
+				var worldX = (chunkPosition.getX() << 4) + relX;
+				var worldZ = (chunkPosition.getZ() << 4) + relZ;
+
 				try {
 					var blockState = overrideData.state();
-					var stateWrapper = wrapperFactory.getBlockStateWrapper(new Object[] { blockState }, levelWrapper);
+					var stateWrapper = DhWrapperCache.getBlockStateWrapper(blockState, levelWrapper);
+
+					if (stateWrapper == null) {
+						return chunkWrapper.getBlockState(relX, relY, relZ, mutablePos, cachedState);
+					}
 
 					if (INJECT_LOG_TALLY.getAndIncrement() < 20) {
 						Mod.LOGGER.info("Injected contraption state at {}/{}/{} in {} ({}).", worldX, relY, worldZ, dimensionId,
@@ -0,0 +1,119 @@
+package net.saint.createrenderfixer.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.util.Mth;
+import net.saint.createrenderfixer.dh.WindmillBladeGeometry;
+import net.saint.createrenderfixer.dh.WindmillLODEntry;
+import net.saint.createrenderfixer.library.Size2D;
+
+/**
+ * Binary wire format for windmill LOD sync.
+ *
+ * Each windmill is addressed by a numeric handle assigned per connection. The first record for a handle
+ * carries the full registration data, later records only the quantized angle and the speed.
+ */
+public final class WindmillLODSyncCodec {
+
+	// Configuration
+
+	private static final int RECORD_KIND_DELTA = 0;
+	private static final int RECORD_KIND_FULL = 1;
+
+	private static final float ANGLE_QUANTIZATION_STEPS = 65_536.0F;
+
+	// Library
+
+	public sealed interface SyncRecord permits FullRecord, DeltaRecord {
+		int handle();
+	}
+
+	public record FullRecord(int handle, WindmillLODEntry entry) implements SyncRecord {
+	}
+
+	public record DeltaRecord(int handle, float rotationAngle, float rotationSpeed) implements SyncRecord {
+	}
+
+	// Batches
+
+	public static List<SyncRecord> readRecords(FriendlyByteBuf buffer) {
+		var recordCount = buffer.readVarInt();
+		var records = new ArrayList<SyncRecord>(recordCount);
+
+		for (var i = 0; i < recordCount; i++) {
+			records.add(readRecord(buffer));
+		}
+
+		return records;
+	}
+
+	// Records
+
+	public static void writeFullRecord(FriendlyByteBuf buffer, int handle, WindmillLODEntry entry) {
+		buffer.writeVarInt(handle << 1 | RECORD_KIND_FULL);
+		buffer.writeUUID(entry.contraptionId);
+		buffer.writeUtf(entry.dimensionId);
+		buffer.writeLong(entry.anchorPosition.asLong());
+		buffer.writeByte(entry.rotationAxis.ordinal());
+		buffer.writeByte(entry.bearingDirection.get3DDataValue());
+		buffer.writeFloat(entry.planeSize.width());
+		buffer.writeFloat(entry.planeSize.height());
+		buffer.writeFloat(entry.bladeGeometry.length());
+		buffer.writeFloat(entry.bladeGeometry.width());
+		buffer.writeFloat(entry.bladeGeometry.depth());
+		buffer.writeVarInt(entry.bladeGeometry.numberOfSegments());
+		buffer.writeVarLong(entry.tickRegistered);
+		buffer.writeVarLong(entry.lastSynchronizationTick);
+		buffer.writeShort(quantizeAngle(entry.rotationAngle));
+		buffer.writeFloat(entry.rotationSpeed);
+	}
+
+	public static void writeDeltaRecord(FriendlyByteBuf buffer, int handle, WindmillLODEntry entry) {
+		buffer.writeVarInt(handle << 1 | RECORD_KIND_DELTA);
+		buffer.writeShort(quantizeAngle(entry.rotationAngle));
+		buffer.writeFloat(entry.rotationSpeed);
+	}
+
+	private static SyncRecord readRecord(FriendlyByteBuf buffer) {
+		var header = buffer.readVarInt();
+		var handle = header >>> 1;
+
+		if ((header & 1) == RECORD_KIND_DELTA) {
+			var rotationAngle = dequantizeAngle(buffer.readUnsignedShort());
+			var rotationSpeed = buffer.readFloat();
+
+			return new DeltaRecord(handle, rotationAngle, rotationSpeed);
+		}
+
+		var contraptionId = buffer.readUUID();
+		var dimensionId = buffer.readUtf();
+		var anchorPosition = BlockPos.of(buffer.readLong());
+		var rotationAxis = Direction.Axis.values()[Mth.clamp(buffer.readByte(), 0, Direction.Axis.values().length - 1)];
+		var bearingDirection = Direction.from3DDataValue(buffer.readByte());
+		var planeSize = new Size2D(buffer.readFloat(), buffer.readFloat());
+		var bladeGeometry = new WindmillBladeGeometry(buffer.readFloat(), buffer.readFloat(), buffer.readFloat(), buffer.readVarInt());
+		var tickRegistered = buffer.readVarLong();
+		var lastSynchronizationTick = buffer.readVarLong();
+		var rotationAngle = dequantizeAngle(buffer.readUnsignedShort());
+		var rotationSpeed = buffer.readFloat();
+
+		var entry = new WindmillLODEntry(contraptionId, dimensionId, anchorPosition, rotationAxis, bearingDirection, planeSize,
+				bladeGeometry, tickRegistered, rotationSpeed, rotationAngle, lastSynchronizationTick);
+
+		return new FullRecord(handle, entry);
+	}
+
+	// Quantization
+
+	private static int quantizeAngle(float angle) {
+		return Math.round(Mth.positiveModulo(angle, 360.0F) / 360.0F * ANGLE_QUANTIZATION_STEPS) & 0xFFFF;
+	}
+
+	private static float dequantizeAngle(int quantizedAngle) {
+		return quantizedAngle * 360.0F / ANGLE_QUANTIZATION_STEPS;
+	}
+}
@@ -1,12 +1,20 @@
 package net.saint.createrenderfixer.network;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.jetbrains.annotations.Nullable;
-
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
@@ -27,137 +35,466 @@ public final class WindmillLODSyncUtil {
 	private static final ResourceLocation UPDATE_PACKET = new ResourceLocation(Mod.MOD_ID, "windmill_lod_update");
 	private static final ResourceLocation REMOVE_PACKET = new ResourceLocation(Mod.MOD_ID, "windmill_lod_remove");
 
+	// Interest sets are re-evaluated at this interval and immediately when a player changes dimension.
+	private static final int INTEREST_REFRESH_INTERVAL = 20;
+
+	// Windmills are only streamed out past the render distance plus this margin to avoid flapping at the edge.
+	private static final double INTEREST_RELEASE_PADDING = 64.0;
+
+	// Records are no longer added to a packet once its payload exceeds this size, well below the payload limit.
+	private static final int MAXIMUM_PACKET_PAYLOAD_BYTES = 256 * 1_024;
+
+	// Library
+
+	private record SyncedEntry(int handle, WindmillLODEntry entry) {
+	}
+
+	private record PendingUpdate(WindmillLODEntry entry, double priority, double distance) {
+	}
+
+	/**
+	 * Sync state of one player connection. All access is synchronized on the instance since updates are queued
+	 * from registry callers while the server thread flushes them.
+	 */
+	private static final class ConnectionState {
+		final Map<UUID, SyncedEntry> syncedEntries = new HashMap<>();
+		final Object2LongMap<UUID> lastSentTicks = new Object2LongOpenHashMap<>();
+		final Set<UUID> pendingContraptions = new HashSet<>();
+		String dimensionId = "";
+		long lastInterestRefreshTick;
+		int nextHandle;
+
+		boolean isSynced(WindmillLODEntry entry) {
+			var syncedEntry = syncedEntries.get(entry.contraptionId);
+			return syncedEntry != null && syncedEntry.entry() == entry;
+		}
+
+		SyncedEntry assignHandle(WindmillLODEntry entry) {
+			var existing = syncedEntries.get(entry.contraptionId);
+			var handle = existing != null ? existing.handle() : nextHandle++;
+			var syncedEntry = new SyncedEntry(handle, entry);
+			syncedEntries.put(entry.contraptionId, syncedEntry);
+
+			return syncedEntry;
+		}
+
+		void remove(UUID contraptionId) {
+			syncedEntries.remove(contraptionId);
+			lastSentTicks.removeLong(contraptionId);
+			pendingContraptions.remove(contraptionId);
+		}
+	}
+
+	// Most overdue relative to their own interval first, nearer windmills first among equally overdue ones.
+	private static final Comparator<PendingUpdate> PENDING_UPDATE_ORDER = Comparator.comparingDouble(PendingUpdate::priority).reversed()
+			.thenComparingDouble(PendingUpdate::distance);
+
 	// State
 
-	private static Map<UUID, Long> lastBroadcastTickByPlayer = new HashMap<>();
+	// Sync state per player connection, server side. Created on join and dropped on disconnect.
+	private static final Map<UUID, ConnectionState> CONNECTIONS_BY_PLAYER = new ConcurrentHashMap<>();
+
+	// Contraptions by handle for the current connection, client side. Only accessed on the client thread.
+	private static final Int2ObjectMap<UUID> CLIENT_CONTRAPTIONS_BY_HANDLE = new Int2ObjectOpenHashMap<>();
 
 	// Init
 
 	public static void initServer() {
 		ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> sendLoadPacketToPlayer(handler.player));
+		ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> CONNECTIONS_BY_PLAYER.remove(handler.player.getUUID()));
 	}
 
 	public static void initClient() {
 		ClientPlayNetworking.registerGlobalReceiver(LOAD_PACKET, (client, handler, buffer, responseSender) -> {
-			var entries = readEntries(buffer);
+			var records = WindmillLODSyncCodec.readRecords(buffer);
 
 			client.execute(() -> {
+				var entries = new ArrayList<WindmillLODEntry>(records.size());
+				CLIENT_CONTRAPTIONS_BY_HANDLE.clear();
+
+				for (var record : records) {
+					if (record instanceof WindmillLODSyncCodec.FullRecord fullRecord) {
+						CLIENT_CONTRAPTIONS_BY_HANDLE.put(fullRecord.handle(), fullRecord.entry().contraptionId);
+						entries.add(fullRecord.entry());
+					}
+				}
+
 				ModClient.WINDMILL_LOD_MANAGER.loadPersistent(entries);
 				Mod.LOGGER.info("Received and loaded {} windmill LOD entries client-side.", entries.size());
 			});
 		});
 
 		ClientPlayNetworking.registerGlobalReceiver(UPDATE_PACKET, (client, handler, buffer, responseSender) -> {
-			var entry = readEntry(buffer);
+			var records = WindmillLODSyncCodec.readRecords(buffer);
 			var level = client.level;
 
-			if (entry == null || level == null) {
+			if (records.isEmpty() || level == null) {
 				return;
 			}
 
 			// Override server-side decoupled game time with client-local.
 			// Assume received packet is always recent and use as if received in same time space.
 			var currentTick = level.getGameTime();
-			entry.lastSynchronizationTick = currentTick;
 
 			client.execute(() -> {
-				ModClient.WINDMILL_LOD_MANAGER.register(entry);
-				Mod.LOGGER.info("Received and updated registration for windmill LOD for contraption '{}' client-side (tick {}).",
-						entry.contraptionId, entry.lastSynchronizationTick);
+				for (var record : records) {
+					applyRecordClientSide(record, currentTick);
+				}
+
+				Mod.LOGGER.info("Received and updated {} windmill LOD entries client-side (tick {}).", records.size(), currentTick);
 			});
 		});
 
 		ClientPlayNetworking.registerGlobalReceiver(REMOVE_PACKET, (client, handler, buffer, responseSender) -> {
-			var contraptionIdentifier = buffer.readUUID();
+			var contraptionIdentifiers = buffer.readList(FriendlyByteBuf::readUUID);
 
 			client.execute(() -> {
-				ModClient.WINDMILL_LOD_MANAGER.unregister(contraptionIdentifier);
-				Mod.LOGGER.info("Deregistered windmill LOD for contraption '{}' client-side.", contraptionIdentifier);
+				for (var contraptionIdentifier : contraptionIdentifiers) {
+					CLIENT_CONTRAPTIONS_BY_HANDLE.values().remove(contraptionIdentifier);
+					ModClient.WINDMILL_LOD_MANAGER.unregister(contraptionIdentifier);
+				}
+
+				Mod.LOGGER.info("Deregistered {} windmill LOD entries client-side.", contraptionIdentifiers.size());
 			});
 		});
 	}
 
-	// Broadcast
+	private static void applyRecordClientSide(WindmillLODSyncCodec.SyncRecord record, long currentTick) {
+		if (record instanceof WindmillLODSyncCodec.FullRecord fullRecord) {
+			var entry = fullRecord.entry();
+			entry.lastSynchronizationTick = currentTick;
+
+			CLIENT_CONTRAPTIONS_BY_HANDLE.put(fullRecord.handle(), entry.contraptionId);
+			ModClient.WINDMILL_LOD_MANAGER.register(entry);
 
-	public static void sendLoadPacketToAllPlayers(MinecraftServer server) {
-		if (server == null) {
 			return;
 		}
 
-		for (var player : server.getPlayerList().getPlayers()) {
-			sendLoadPacketToPlayer(player);
+		if (!(record instanceof WindmillLODSyncCodec.DeltaRecord deltaRecord)) {
+			return;
+		}
+
+		var contraptionId = CLIENT_CONTRAPTIONS_BY_HANDLE.get(deltaRecord.handle());
+		var entry = ModClient.WINDMILL_LOD_MANAGER.find(contraptionId);
+
+		if (entry == null) {
+			return;
 		}
+
+		entry.rotationSpeed = deltaRecord.rotationSpeed();
+		entry.rotationAngle = deltaRecord.rotationAngle();
+		entry.lastSynchronizationTick = currentTick;
 	}
 
+	// Broadcast
+
+	/**
+	 * Resets the connection's handles and interest set and sends the nearest windmills of interest to a joining
+	 * player. The load packet is bounded by the per-player update budget, remaining windmills are queued and
+	 * streamed nearest first by the following flushes.
+	 */
 	public static void sendLoadPacketToPlayer(ServerPlayer player) {
-		var entries = collectServerEntries();
-		var buffer = PacketByteBufs.create();
-		buffer.writeVarInt(entries.size());
+		var dimensionId = getDimensionIdForPlayer(player);
+		var entries = getEntriesOfInterestForPlayer(player, dimensionId);
+		var playerPosition = player.position();
+		var currentTick = player.server.getTickCount();
+		var connectionState = new ConnectionState();
+		var budget = Math.max(1, Mod.CONFIG.windmillSyncUpdateBudget);
+		var records = PacketByteBufs.create();
+		var recordCount = 0;
+
+		entries.sort(Comparator.comparingDouble((WindmillLODEntry entry) -> entry.anchorPosition.distToCenterSqr(playerPosition)));
 
 		for (var entry : entries) {
-			writeEntry(buffer, entry);
+			if (recordCount >= budget || records.writerIndex() >= MAXIMUM_PACKET_PAYLOAD_BYTES) {
+				connectionState.pendingContraptions.add(entry.contraptionId);
+				continue;
+			}
+
+			var syncedEntry = connectionState.assignHandle(entry);
+			connectionState.lastSentTicks.put(entry.contraptionId, currentTick);
+			WindmillLODSyncCodec.writeFullRecord(records, syncedEntry.handle(), entry);
+			recordCount++;
 		}
 
-		ServerPlayNetworking.send(player, LOAD_PACKET, buffer);
-		Mod.LOGGER.info("Sent {} windmill LOD entries data to player '{}'.", entries.size(), player.getGameProfile().getName());
+		connectionState.dimensionId = dimensionId;
+		connectionState.lastInterestRefreshTick = currentTick;
+
+		// Handles restart with every load, the client drops its previous table when it receives the packet.
+		CONNECTIONS_BY_PLAYER.put(player.getUUID(), connectionState);
+
+		ServerPlayNetworking.send(player, LOAD_PACKET, createRecordPacketBuffer(recordCount, records));
+		Mod.LOGGER.info("Sent {} windmill LOD entries data to player '{}', {} queued for following ticks.", recordCount,
+				player.getGameProfile().getName(), entries.size() - recordCount);
 	}
 
+	/**
+	 * Marks the entry as changed for every player holding it or having it in range. The update is paced and sent
+	 * by the next flush.
+	 */
 	public static void sendUpdatePacketToAllPlayers(MinecraftServer server, WindmillLODEntry entry) {
 		if (server == null || entry == null) {
 			return;
 		}
 
+		var releaseDistanceSquared = getInterestReleaseDistanceSquared();
+
+		for (var player : server.getPlayerList().getPlayers()) {
+			var connectionState = CONNECTIONS_BY_PLAYER.computeIfAbsent(player.getUUID(), key -> new ConnectionState());
+
+			synchronized (connectionState) {
+				var isHeld = connectionState.syncedEntries.containsKey(entry.contraptionId);
+
+				if (!isHeld && !isEntryWithinDistanceOfPlayer(player, entry, releaseDistanceSquared)) {
+					continue;
+				}
+
+				connectionState.pendingContraptions.add(entry.contraptionId);
+			}
+		}
+	}
+
+	public static void sendRemovalPacketToAllPlayers(MinecraftServer server, UUID contraptionId) {
+		if (server == null || contraptionId == null) {
+			return;
+		}
+
+		var playerList = server.getPlayerList();
+
+		// Drop queued updates so a later flush does not re-register the removed windmill client-side.
+		for (var connectionEntry : CONNECTIONS_BY_PLAYER.entrySet()) {
+			var connectionState = connectionEntry.getValue();
+			boolean wasHeld;
+
+			synchronized (connectionState) {
+				wasHeld = connectionState.syncedEntries.containsKey(contraptionId);
+				connectionState.remove(contraptionId);
+			}
+
+			var player = playerList.getPlayer(connectionEntry.getKey());
+
+			if (wasHeld && player != null) {
+				sendRemovalPacketToPlayer(player, List.of(contraptionId));
+			}
+		}
+	}
+
+	/**
+	 * Streams out all windmills of an unloaded dimension from the players holding them.
+	 */
+	public static void sendRemovalPacketsForDimension(MinecraftServer server, String dimensionId) {
+		if (server == null || dimensionId == null) {
+			return;
+		}
+
+		var playerList = server.getPlayerList();
+
+		for (var connectionEntry : CONNECTIONS_BY_PLAYER.entrySet()) {
+			var connectionState = connectionEntry.getValue();
+			var removedContraptions = new ArrayList<UUID>();
+
+			synchronized (connectionState) {
+				for (var syncedEntry : connectionState.syncedEntries.values()) {
+					if (dimensionId.equals(syncedEntry.entry().dimensionId)) {
+						removedContraptions.add(syncedEntry.entry().contraptionId);
+					}
+				}
+
+				removedContraptions.forEach(connectionState::remove);
+			}
+
+			var player = playerList.getPlayer(connectionEntry.getKey());
+
+			if (!removedContraptions.isEmpty() && player != null) {
+				sendRemovalPacketToPlayer(player, removedContraptions);
+			}
+		}
+	}
+
+	private static void sendRemovalPacketToPlayer(ServerPlayer player, List<UUID> contraptionIds) {
+		var buffer = PacketByteBufs.create();
+		buffer.writeCollection(contraptionIds, FriendlyByteBuf::writeUUID);
+		ServerPlayNetworking.send(player, REMOVE_PACKET, buffer);
+	}
+
+	// Interest
+
+	/**
+	 * Streams windmills in and out of the player's interest set, covering the player's current dimension within
+	 * the maximum windmill render distance. Newly relevant windmills are queued and sent in full by the flush.
+	 */
+	private static void refreshInterestForPlayer(ServerPlayer player, ConnectionState connectionState, long currentTick) {
+		var dimensionId = getDimensionIdForPlayer(player);
+		var releaseDistanceSquared = getInterestReleaseDistanceSquared();
+
+		for (var entry : getEntriesOfInterestForPlayer(player, dimensionId)) {
+			if (!connectionState.syncedEntries.containsKey(entry.contraptionId)) {
+				connectionState.pendingContraptions.add(entry.contraptionId);
+			}
+		}
+
+		var releasedContraptions = new ArrayList<UUID>();
+
+		for (var syncedEntry : connectionState.syncedEntries.values()) {
+			if (!isEntryWithinDistanceOfPlayer(player, syncedEntry.entry(), releaseDistanceSquared)) {
+				releasedContraptions.add(syncedEntry.entry().contraptionId);
+			}
+		}
+
+		// Pending entries the client never received are dropped silently once they leave the interest range.
+		connectionState.pendingContraptions.removeIf(contraptionId -> {
+			var entry = Mod.WINDMILL_LOD_MANAGER.find(contraptionId);
+			return entry == null || !isEntryWithinDistanceOfPlayer(player, entry, releaseDistanceSquared);
+		});
+
+		releasedContraptions.forEach(connectionState::remove);
+
+		connectionState.dimensionId = dimensionId;
+		connectionState.lastInterestRefreshTick = currentTick;
+
+		if (!releasedContraptions.isEmpty()) {
+			sendRemovalPacketToPlayer(player, releasedContraptions);
+		}
+	}
+
+	private static List<WindmillLODEntry> getEntriesOfInterestForPlayer(ServerPlayer player, String dimensionId) {
+		var position = player.position();
+		var radius = Math.max(0.0, Mod.CONFIG.windmillMaximumRenderDistance);
+
+		return Mod.WINDMILL_LOD_MANAGER.entriesWithinRadius(dimensionId, position.x, position.y, position.z, radius);
+	}
+
+	private static boolean isEntryWithinDistanceOfPlayer(ServerPlayer player, WindmillLODEntry entry, double distanceSquared) {
+		if (entry.anchorPosition == null || !getDimensionIdForPlayer(player).equals(entry.dimensionId)) {
+			return false;
+		}
+
+		return entry.anchorPosition.distToCenterSqr(player.position()) <= distanceSquared;
+	}
+
+	private static double getInterestReleaseDistanceSquared() {
+		var releaseDistance = Math.max(0.0, Mod.CONFIG.windmillMaximumRenderDistance) + INTEREST_RELEASE_PADDING;
+		return releaseDistance * releaseDistance;
+	}
+
+	// Flush
+
+	/**
+	 * Sends the due updates of each player as one batched packet. Runs at the end of each server tick.
+	 */
+	public static void tick(MinecraftServer server) {
+		if (CONNECTIONS_BY_PLAYER.isEmpty()) {
+			return;
+		}
+
 		var playerList = server.getPlayerList();
 		var viewDistance = playerList.getViewDistance();
+		var currentTick = server.getTickCount();
 
-		for (var player : playerList.getPlayers()) {
-			var playerDistance = getDistanceForPlayerToEntry(player, entry);
-			var minTicksElapsed = getTickPacingForPlayerDistance(playerDistance, viewDistance);
+		for (var connectionEntry : CONNECTIONS_BY_PLAYER.entrySet()) {
+			var player = playerList.getPlayer(connectionEntry.getKey());
+			var connectionState = connectionEntry.getValue();
 
-			if (!shouldSendPacedUpdateToPlayer(player, minTicksElapsed)) {
+			if (player == null) {
 				continue;
 			}
 
-			Mod.LOGGER.info("Sending paced windmill LOD entry to player '{}' ({}), distance {} chunks, interval {} ticks.",
-					player.getName(), player.getUUID(), playerDistance, minTicksElapsed);
+			synchronized (connectionState) {
+				var hasChangedDimension = !connectionState.dimensionId.equals(getDimensionIdForPlayer(player));
 
-			var buffer = PacketByteBufs.create();
-			writeEntry(buffer, entry);
-			ServerPlayNetworking.send(player, UPDATE_PACKET, buffer);
+				if (hasChangedDimension || currentTick - connectionState.lastInterestRefreshTick >= INTEREST_REFRESH_INTERVAL) {
+					refreshInterestForPlayer(player, connectionState, currentTick);
+				}
 
-			touchBroadcastForPlayer(player);
+				flushPendingUpdatesForPlayer(player, connectionState, viewDistance, currentTick);
+			}
 		}
 	}
 
-	public static void sendRemovalPacketToAllPlayers(MinecraftServer server, UUID contraptionId) {
-		if (server == null || contraptionId == null) {
+	/**
+	 * Sends pending updates whose per-entry pacing interval has elapsed, ordered by priority and capped by the
+	 * per-player budget. Updates not yet due or over budget stay pending for a later tick.
+	 */
+	private static void flushPendingUpdatesForPlayer(ServerPlayer player, ConnectionState connectionState, int viewDistance,
+			long currentTick) {
+		if (connectionState.pendingContraptions.isEmpty()) {
 			return;
 		}
 
-		for (var player : server.getPlayerList().getPlayers()) {
-			var buffer = PacketByteBufs.create();
-			buffer.writeUUID(contraptionId);
-			ServerPlayNetworking.send(player, REMOVE_PACKET, buffer);
+		var dueUpdates = new PriorityQueue<PendingUpdate>(PENDING_UPDATE_ORDER);
+		var iterator = connectionState.pendingContraptions.iterator();
+
+		while (iterator.hasNext()) {
+			var entry = Mod.WINDMILL_LOD_MANAGER.find(iterator.next());
+
+			if (entry == null) {
+				iterator.remove();
+				continue;
+			}
+
+			var distance = getDistanceForPlayerToEntry(player, entry);
+
+			// Entries the client does not hold yet are always due and go first.
+			if (!connectionState.isSynced(entry)) {
+				dueUpdates.add(new PendingUpdate(entry, Double.MAX_VALUE, distance));
+				continue;
+			}
+
+			var interval = getTickPacingForPlayerDistance(distance, viewDistance);
+			var elapsedTicks = currentTick - connectionState.lastSentTicks.getLong(entry.contraptionId);
+
+			if (elapsedTicks <= interval) {
+				continue;
+			}
+
+			dueUpdates.add(new PendingUpdate(entry, (double) (elapsedTicks - interval) / interval, distance));
 		}
-	}
 
-	// Pacing (Time)
+		if (dueUpdates.isEmpty()) {
+			return;
+		}
 
-	private static boolean shouldSendPacedUpdateToPlayer(ServerPlayer player, long minTicksElapsed) {
-		var lastBroadcastTick = lastBroadcastTickByPlayer.get(player.getUUID());
+		var budget = Math.max(1, Mod.CONFIG.windmillSyncUpdateBudget);
+		var records = PacketByteBufs.create();
+		var recordCount = 0;
 
-		if (lastBroadcastTick == null) {
-			return true;
+		while (!dueUpdates.isEmpty() && recordCount < budget && records.writerIndex() < MAXIMUM_PACKET_PAYLOAD_BYTES) {
+			var entry = dueUpdates.poll().entry();
+
+			writeRecordForConnection(records, connectionState, entry);
+			connectionState.lastSentTicks.put(entry.contraptionId, currentTick);
+			connectionState.pendingContraptions.remove(entry.contraptionId);
+			recordCount++;
 		}
 
-		var currentTick = player.level().getGameTime();
+		ServerPlayNetworking.send(player, UPDATE_PACKET, createRecordPacketBuffer(recordCount, records));
+		Mod.LOGGER.info("Sent {} windmill LOD updates to player '{}', {} due updates deferred.", recordCount,
+				player.getGameProfile().getName(), dueUpdates.size());
+	}
+
+	private static FriendlyByteBuf createRecordPacketBuffer(int recordCount, FriendlyByteBuf records) {
+		var buffer = PacketByteBufs.create();
+		buffer.writeVarInt(recordCount);
+		buffer.writeBytes(records);
+		records.release();
 
-		return currentTick > lastBroadcastTick + minTicksElapsed;
+		return buffer;
 	}
 
-	private static void touchBroadcastForPlayer(ServerPlayer player) {
-		var currentTick = player.level().getGameTime();
-		lastBroadcastTickByPlayer.put(player.getUUID(), currentTick);
+	/**
+	 * Writes a delta if the client already holds the entry's current registration data, otherwise a full record.
+	 * Entries re-registered with different data are replaced by a new instance in the manager and resent in full.
+	 */
+	private static void writeRecordForConnection(FriendlyByteBuf buffer, ConnectionState connectionState, WindmillLODEntry entry) {
+		if (connectionState.isSynced(entry)) {
+			var syncedEntry = connectionState.syncedEntries.get(entry.contraptionId);
+			WindmillLODSyncCodec.writeDeltaRecord(buffer, syncedEntry.handle(), entry);
+
+			return;
+		}
+
+		var syncedEntry = connectionState.assignHandle(entry);
+		WindmillLODSyncCodec.writeFullRecord(buffer, syncedEntry.handle(), entry);
 	}
 
 	// Pacing (Distance)
@@ -167,7 +504,7 @@ public final class WindmillLODSyncUtil {
 			return 0.0;
 		}
 
-		var playerDimensionId = player.level().dimension().location().toString();
+		var playerDimensionId = getDimensionIdForPlayer(player);
 		var entryDimensionId = entry.dimensionId;
 
 		if (!playerDimensionId.equals(entryDimensionId)) {
@@ -202,46 +539,9 @@ public final class WindmillLODSyncUtil {
 		return pacingTickInterval;
 	}
 
-	// Read
-
-	private static ArrayList<WindmillLODEntry> readEntries(FriendlyByteBuf buffer) {
-		var entryCount = buffer.readVarInt();
-		var entries = new ArrayList<WindmillLODEntry>(entryCount);
-
-		for (var i = 0; i < entryCount; i++) {
-			var entry = readEntry(buffer);
-
-			if (entry == null) {
-				continue;
-			}
-
-			entries.add(entry);
-		}
-
-		return entries;
-	}
-
-	// Coding
-
-	@Nullable
-	private static WindmillLODEntry readEntry(FriendlyByteBuf buffer) {
-		var nbt = buffer.readNbt();
-		var entry = WindmillLODEntry.fromNbt(nbt);
-
-		return entry;
-	}
-
-	private static void writeEntry(FriendlyByteBuf buffer, WindmillLODEntry entry) {
-		buffer.writeNbt(entry.toNbt());
-	}
-
-	private static ArrayList<WindmillLODEntry> collectServerEntries() {
-		var entries = new ArrayList<WindmillLODEntry>();
-
-		for (var entry : Mod.WINDMILL_LOD_MANAGER.entries()) {
-			entries.add(entry.createPersistenceSnapshot());
-		}
+	// Utility
 
-		return entries;
+	private static String getDimensionIdForPlayer(ServerPlayer player) {
+		return player.level().dimension().location().toString();
 	}
 }